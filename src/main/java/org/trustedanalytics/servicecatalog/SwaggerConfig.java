@@ -19,6 +19,7 @@ import com.google.common.base.Predicate;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.async.DeferredResult;
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.service.ApiInfo;
 import springfox.documentation.spi.DocumentationType;
@@ -35,6 +36,7 @@ public class SwaggerConfig {
     public Docket orgsApi() {
         return new Docket(DocumentationType.SWAGGER_2)
                 .ignoredParameterTypes(Authentication.class)
+                .genericModelSubstitutes(DeferredResult.class)
                 .apiInfo(apiInfo())
                 .select()
                 .paths(orgsPaths())
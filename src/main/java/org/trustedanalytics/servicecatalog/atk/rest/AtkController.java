@@ -26,6 +26,7 @@ import org.trustedanalytics.cloud.cc.api.queries.Filter;
 import org.trustedanalytics.cloud.cc.api.queries.FilterOperator;
 import org.trustedanalytics.cloud.cc.api.queries.FilterQuery;
 import org.trustedanalytics.servicecatalog.atk.Atk;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,10 +43,12 @@ public class AtkController {
     private static final Logger LOGGER = LoggerFactory.getLogger(AtkController.class);
 
     private final CcOperations client;
+    private final InvalidationBus invalidationBus;
 
     @Autowired
-    public AtkController(CcOperations ccClient) {
+    public AtkController(CcOperations ccClient, InvalidationBus invalidationBus) {
         this.client = ccClient;
+        this.invalidationBus = invalidationBus;
     }
 
     @RequestMapping(value = "/rest/atk/scoring-engine", method = POST, produces = APPLICATION_JSON_VALUE)
@@ -58,6 +61,7 @@ public class AtkController {
 
         LOGGER.info("Creating Scoring Engine: {}", newSEInstance.getName());
         client.createServiceInstance(newSEInstance);
+        invalidationBus.publish(InvalidationBus.Kind.SPACE, newSEInstance.getSpaceGuid());
 
         final CcSummary ccSummary = client.getSpaceSummary(newSEInstance.getSpaceGuid());
 
@@ -71,6 +75,7 @@ public class AtkController {
 
         LOGGER.info("Restaging application: {}", scoringEngine.getApp());
         client.restageApp(scoringEngine.getApp());
+        invalidationBus.publish(InvalidationBus.Kind.SPACE, newSEInstance.getSpaceGuid());
     }
 
     private void rebindService(UUID app, UUID from, UUID to) {
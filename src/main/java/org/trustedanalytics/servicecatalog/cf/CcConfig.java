@@ -18,25 +18,31 @@ package org.trustedanalytics.servicecatalog.cf;
 import static org.springframework.context.annotation.ScopedProxyMode.INTERFACES;
 import static org.springframework.web.context.WebApplicationContext.SCOPE_REQUEST;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import feign.Client;
 import feign.Feign;
 import feign.auth.BasicAuthRequestInterceptor;
 import feign.jackson.JacksonDecoder;
 import feign.jackson.JacksonEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.oauth2.client.OAuth2RestTemplate;
 import org.trustedanalytics.cloud.auth.OAuth2TokenRetriever;
 import org.trustedanalytics.cloud.cc.FeignClient;
 import org.trustedanalytics.cloud.cc.api.CcOperations;
 import org.trustedanalytics.cloud.cc.api.customizations.OAuth2RequestInterceptor;
+import org.trustedanalytics.servicecatalog.security.ClientTokenHolder;
+import org.trustedanalytics.servicecatalog.service.CachingCatalogOperations;
 import org.trustedanalytics.servicecatalog.service.CatalogOperations;
 import org.trustedanalytics.servicecatalog.service.StashErrorDecoder;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
+
+import java.util.concurrent.Executors;
 
 @Configuration
 public class CcConfig {
@@ -53,9 +59,30 @@ public class CcConfig {
     @Value("${broker.url:/}")
     private String appBrokerBaseUrl;
 
+    @Value("${broker.catalog.ttl:30000}")
+    private long catalogTtl;
+
+    @Value("${cf.summary.cache.fresh:5000}")
+    private long summaryFreshness;
+
+    @Value("${cf.summary.cache.maxAge:60000}")
+    private long summaryMaxAge;
+
+    @Value("${cf.summary.cache.membershipTtl:30000}")
+    private long membershipTtl;
+
+    @Value("${cf.summary.cache.refreshThreads:4}")
+    private int summaryRefreshThreads;
+
     @Autowired
     private OAuth2TokenRetriever tokenRetriever;
 
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private Client ccFeignClient;
+
     @Bean
     public StashErrorDecoder stashErrorDecoder() {
         return new StashErrorDecoder();
@@ -63,27 +90,75 @@ public class CcConfig {
 
     @Bean
     @Scope(value = SCOPE_REQUEST, proxyMode = INTERFACES)
-    protected CcOperations ccClient() {
+    protected CcOperations ccClient(SpaceSummaryCache spaceSummaryCache) {
         final Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         final String token = tokenRetriever.getAuthToken(auth);
 
-        return new FeignClient(apiBaseUrl, builder -> builder
+        final CcOperations client = new FeignClient(apiBaseUrl, builder -> builder
+            .client(ccFeignClient)
             .requestInterceptor(new OAuth2RequestInterceptor(token)));
+        return SpaceSummaryMemo.wrap(spaceSummaryCache.wrap(ccSingleFlight().wrap(client, token), token),
+            counterService);
     }
 
     @Bean
-    protected CcOperations ccPrivilegedClient(@Qualifier("clientRestTemplate") OAuth2RestTemplate restTemplate) {
-        return new FeignClient(apiBaseUrl, builder -> builder.requestInterceptor(template ->
-            template.header("Authorization", "bearer " + restTemplate.getAccessToken())));
+    public SpaceSummaryCache spaceSummaryCache(CcOperations ccPrivilegedClient, InvalidationBus invalidationBus) {
+        final SpaceSummaryCache cache = new SpaceSummaryCache(ccPrivilegedClient, summaryFreshness, summaryMaxAge,
+            membershipTtl, Executors.newFixedThreadPool(summaryRefreshThreads,
+                new ThreadFactoryBuilder().setNameFormat("summary-refresh-%d").setDaemon(true).build()));
+        invalidationBus.subscribe(InvalidationBus.Kind.SPACE, cache::evictSpace);
+        invalidationBus.subscribe(InvalidationBus.Kind.SERVICE_INSTANCE, cache::evictInstance);
+        invalidationBus.subscribe(InvalidationBus.Kind.APP, cache::evictApp);
+        // binding does not tell which space it belongs to
+        invalidationBus.subscribe(InvalidationBus.Kind.SERVICE_BINDING, binding -> cache.evictAll());
+        return cache;
     }
 
     @Bean
-    protected CatalogOperations catalogClient() {
+    public SingleFlight ccSingleFlight() {
+        return new SingleFlight(counterService);
+    }
+
+    @Bean
+    @Scope(value = SCOPE_REQUEST, proxyMode = INTERFACES)
+    protected ServiceKeysOperations ccServiceKeysClient() {
+        final Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        final String token = tokenRetriever.getAuthToken(auth);
+
+        return Feign.builder()
+            .client(ccFeignClient)
+            .decoder(new JacksonDecoder())
+            .requestInterceptor(new OAuth2RequestInterceptor(token))
+            .target(ServiceKeysOperations.class, apiBaseUrl);
+    }
+
+    @Bean
+    protected CcOperations ccPrivilegedClient(ClientTokenHolder clientTokenHolder) {
+        return new FeignClient(apiBaseUrl, builder -> builder
+            .client(ccFeignClient)
+            .requestInterceptor(template ->
+                template.header("Authorization", "bearer " + clientTokenHolder.getToken())));
+    }
+
+    @Bean
+    protected ServiceInstancesOperations ccPrivilegedServiceInstancesClient(ClientTokenHolder clientTokenHolder) {
         return Feign.builder()
+            .client(ccFeignClient)
+            .requestInterceptor(template ->
+                template.header("Authorization", "bearer " + clientTokenHolder.getToken()))
+            .target(ServiceInstancesOperations.class, apiBaseUrl);
+    }
+
+    @Bean
+    protected CachingCatalogOperations catalogClient(InvalidationBus invalidationBus) {
+        final CachingCatalogOperations catalogClient = new CachingCatalogOperations(Feign.builder()
+                .client(ccFeignClient)
                 .encoder(new JacksonEncoder())
                 .decoder(new JacksonDecoder())
                 .requestInterceptor(new BasicAuthRequestInterceptor(brokerUser, brokerPass))
-                .target(CatalogOperations.class, appBrokerBaseUrl);
+                .target(CatalogOperations.class, appBrokerBaseUrl), catalogTtl);
+        invalidationBus.subscribe(InvalidationBus.Kind.CATALOG, id -> catalogClient.invalidate());
+        return catalogClient;
     }
 }
 
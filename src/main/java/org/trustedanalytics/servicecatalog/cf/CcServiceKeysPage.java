@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import org.trustedanalytics.cloud.cc.api.CcServiceKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CcServiceKeysPage {
+
+    @JsonProperty("total_pages")
+    private int totalPages;
+
+    @JsonProperty("resources")
+    private Collection<CcServiceKey> resources = new ArrayList<>();
+}
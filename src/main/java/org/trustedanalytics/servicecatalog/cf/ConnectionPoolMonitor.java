@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts expired and idle connections from the pool shared by Cloud Controller clients and reports its
+ * utilization through metrics endpoint.
+ */
+public class ConnectionPoolMonitor implements PublicMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPoolMonitor.class);
+
+    private static final String METRIC_PREFIX = "gauge.cc.http.pool.";
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final long idleTimeoutMillis;
+
+    public ConnectionPoolMonitor(PoolingHttpClientConnectionManager connectionManager, long idleTimeoutMillis) {
+        this.connectionManager = Objects.requireNonNull(connectionManager);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${cf.http.evictionInterval:10000}")
+    public void evictConnections() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        LOGGER.debug("Connection pool after eviction: {}", connectionManager.getTotalStats());
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return Arrays.asList(
+            new Metric<>(METRIC_PREFIX + "leased", stats.getLeased()),
+            new Metric<>(METRIC_PREFIX + "available", stats.getAvailable()),
+            new Metric<>(METRIC_PREFIX + "pending", stats.getPending()),
+            new Metric<>(METRIC_PREFIX + "max", stats.getMax()));
+    }
+}
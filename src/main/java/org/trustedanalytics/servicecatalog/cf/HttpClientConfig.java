@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import feign.Client;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Single connection pool used by all Cloud Controller clients. Clients bound to user token are created per
+ * request, but their connections are not - tokens are attached to each request by interceptors.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${cf.http.pool.max:100}")
+    private int maxConnections;
+
+    @Value("${cf.http.pool.maxPerRoute:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${cf.http.keepAlive:60000}")
+    private long keepAliveMillis;
+
+    @Value("${cf.http.idleTimeout:30000}")
+    private long idleTimeoutMillis;
+
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager ccConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        return connectionManager;
+    }
+
+    @Bean
+    public HttpClient ccHttpClient(PoolingHttpClientConnectionManager ccConnectionManager) {
+        return HttpClientBuilder.create()
+            .useSystemProperties()
+            .setConnectionManager(ccConnectionManager)
+            .setConnectionManagerShared(true)
+            .setKeepAliveStrategy(keepAliveStrategy())
+            // the client is shared by users, cookies set for one of them must not be sent on behalf of others
+            .disableCookieManagement()
+            .build();
+    }
+
+    @Bean
+    public Client ccFeignClient(HttpClient ccHttpClient) {
+        return new PooledFeignClient(ccHttpClient);
+    }
+
+    @Bean
+    public ConnectionPoolMonitor ccConnectionPoolMonitor(PoolingHttpClientConnectionManager ccConnectionManager) {
+        return new ConnectionPoolMonitor(ccConnectionManager, idleTimeoutMillis);
+    }
+
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+        };
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Feign transport executing requests with shared, pooled {@link HttpClient}, so connections (and TLS sessions)
+ * are reused by all clients, even by the ones created per request. Feign closes response body once it is read,
+ * which returns the connection to the pool.
+ */
+public class PooledFeignClient implements Client {
+
+    private final HttpClient httpClient;
+
+    public PooledFeignClient(HttpClient httpClient) {
+        this.httpClient = Objects.requireNonNull(httpClient);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        return toResponse(httpClient.execute(toHttpRequest(request, options)));
+    }
+
+    private static HttpUriRequest toHttpRequest(Request request, Request.Options options) {
+        RequestBuilder builder = RequestBuilder.create(request.method())
+            .setUri(request.url())
+            .setConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(options.connectTimeoutMillis())
+                .setConnectTimeout(options.connectTimeoutMillis())
+                .setSocketTimeout(options.readTimeoutMillis())
+                .build());
+
+        // length and host are set by HttpClient itself, it refuses requests which already have them
+        request.headers().entrySet().stream()
+            .filter(header -> !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey()))
+            .filter(header -> !HttpHeaders.HOST.equalsIgnoreCase(header.getKey()))
+            .forEach(header -> header.getValue().forEach(value -> builder.addHeader(header.getKey(), value)));
+
+        if (request.body() != null) {
+            builder.setEntity(new ByteArrayEntity(request.body()));
+        }
+        return builder.build();
+    }
+
+    private static Response toResponse(HttpResponse httpResponse) throws IOException {
+        StatusLine status = httpResponse.getStatusLine();
+        Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        for (Header header : httpResponse.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+
+        HttpEntity entity = httpResponse.getEntity();
+        if (entity == null) {
+            return Response.create(status.getStatusCode(), status.getReasonPhrase(), headers, (byte[]) null);
+        }
+        long length = entity.getContentLength();
+        return Response.create(status.getStatusCode(), status.getReasonPhrase(), headers, entity.getContent(),
+            length >= 0 && length <= Integer.MAX_VALUE ? (int) length : null);
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import org.springframework.aop.scope.ScopedObject;
+
+public final class RequestScopedClients {
+
+    private RequestScopedClients() {
+    }
+
+    /**
+     * Request scoped clients are injected as proxies, which look the client up in the current request on every
+     * call. Target has to be resolved on request thread, before the client is used from any other thread.
+     *
+     * @param client client injected as scoped proxy
+     * @param <T> client type
+     * @return client bound to the current request
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T target(T client) {
+        if (client instanceof ScopedObject) {
+            return (T) ((ScopedObject) client).getTargetObject();
+        }
+        return client;
+    }
+}
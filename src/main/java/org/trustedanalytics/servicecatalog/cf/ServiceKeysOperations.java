@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import feign.Param;
+import feign.RequestLine;
+
+import java.util.UUID;
+
+/**
+ * Cloud Controller calls not covered by {@link org.trustedanalytics.cloud.cc.api.CcOperations}.
+ */
+public interface ServiceKeysOperations {
+
+    /**
+     * Maximal page size accepted by Cloud Controller.
+     */
+    int MAX_PAGE_SIZE = 100;
+
+    @RequestLine("GET /v2/service_instances/{instance}/service_keys?page={page}&results-per-page={perPage}")
+    CcServiceKeysPage getServiceKeys(@Param("instance") UUID instance, @Param("page") int page,
+        @Param("perPage") int perPage);
+}
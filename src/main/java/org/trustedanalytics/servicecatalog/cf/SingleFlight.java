@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Lets concurrent identical Cloud Controller reads share one call. Calls are identical when they are made
+ * with the same token, to the same operation, with the same arguments. Caller which finds such call in flight
+ * waits for its result instead of calling Cloud Controller; nothing is kept after the call completes.
+ *
+ * Only synchronous application summary reads are coalesced, as these are fetched by several console widgets
+ * at once. Space summaries are not: {@link SpaceSummaryCache}, which wraps this client, serves them to all users
+ * and loads each at most once at a time, so they never reach this layer.
+ */
+public class SingleFlight {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SingleFlight.class);
+
+    public static final String EXECUTED_METRIC = "counter.cc.singleflight.executed";
+    public static final String COALESCED_METRIC = "counter.cc.singleflight.coalesced";
+
+    private static final Set<String> COALESCED_OPERATIONS = ImmutableSet.of("getAppSummary");
+
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final CounterService counterService;
+
+    /**
+     * @param counterService counter of executed and coalesced calls
+     */
+    public SingleFlight(CounterService counterService) {
+        this.counterService = Objects.requireNonNull(counterService);
+    }
+
+    /**
+     * @param delegate client to be wrapped
+     * @param identity identity of the user the client acts on behalf of, e.g. token
+     * @return client sharing summary reads with concurrent calls of the same user
+     */
+    public CcOperations wrap(CcOperations delegate, String identity) {
+        Objects.requireNonNull(delegate);
+        Objects.requireNonNull(identity);
+        return (CcOperations) Proxy.newProxyInstance(CcOperations.class.getClassLoader(),
+            new Class<?>[] {CcOperations.class}, new Handler(delegate, identity));
+    }
+
+    private Object execute(List<Object> key, Method method, Object target, Object[] args) throws Throwable {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            counterService.increment(COALESCED_METRIC);
+            LOGGER.debug("Joined call of {} in flight", method.getName());
+            return await(existing);
+        }
+
+        counterService.increment(EXECUTED_METRIC);
+        try {
+            Object result = invoke(method, target, args);
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> call) throws Throwable {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Cloud Controller call", e);
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class Handler implements InvocationHandler {
+        private final CcOperations delegate;
+        private final String identity;
+
+        private Handler(CcOperations delegate, String identity) {
+            this.delegate = delegate;
+            this.identity = identity;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!COALESCED_OPERATIONS.contains(method.getName())) {
+                return SingleFlight.invoke(method, delegate, args);
+            }
+
+            List<Object> key = new ArrayList<>();
+            key.add(identity);
+            key.add(method);
+            Collections.addAll(key, args == null ? new Object[0] : args);
+            return execute(key, method, delegate, args);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import org.trustedanalytics.cloud.cc.api.CcApp;
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcServiceInstance;
+import org.trustedanalytics.cloud.cc.api.CcSpace;
+import org.trustedanalytics.cloud.cc.api.CcSummary;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Space summaries shared by all users. Summary older than freshness window is still served, while it is
+ * fetched again in the background; summary older than max age is fetched before it is served. Summaries are
+ * fetched with privileged client, so every read is preceded by check whether user is a member of the space.
+ * Spaces of the user are cached for a short time as well.
+ *
+ * Summary of the space is evicted whenever the space is modified through this service.
+ */
+public class SpaceSummaryCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpaceSummaryCache.class);
+
+    private static final String GET_SPACE_SUMMARY = "getSpaceSummary";
+    private static final long MAX_TRACKED_RESOURCES = 100000;
+
+    private final CcOperations privilegedClient;
+    private final LoadingCache<UUID, CcSummary> summaries;
+    private final Cache<String, Set<UUID>> memberships;
+    private final Cache<UUID, UUID> instanceSpaces;
+    private final Cache<UUID, UUID> appSpaces;
+
+    /**
+     * @param privilegedClient client used to fetch summaries
+     * @param freshnessMillis time after which summary is refreshed in the background
+     * @param maxAgeMillis time after which summary is not served anymore
+     * @param membershipTtlMillis time for which spaces of the user are cached
+     * @param refreshExecutor executor of background refreshes
+     */
+    public SpaceSummaryCache(CcOperations privilegedClient, long freshnessMillis, long maxAgeMillis,
+        long membershipTtlMillis, Executor refreshExecutor) {
+        this.privilegedClient = Objects.requireNonNull(privilegedClient);
+        this.summaries = CacheBuilder.newBuilder()
+            .refreshAfterWrite(freshnessMillis, TimeUnit.MILLISECONDS)
+            .expireAfterWrite(maxAgeMillis, TimeUnit.MILLISECONDS)
+            .build(CacheLoader.asyncReloading(CacheLoader.from(this::fetch), refreshExecutor));
+        this.memberships = CacheBuilder.newBuilder()
+            .expireAfterWrite(membershipTtlMillis, TimeUnit.MILLISECONDS)
+            .build();
+        // spaces of instances and apps are known only while summaries listing them may be served
+        this.instanceSpaces = spacesOfResources(maxAgeMillis);
+        this.appSpaces = spacesOfResources(maxAgeMillis);
+    }
+
+    /**
+     * @param delegate user's client to be wrapped
+     * @param token user's token
+     * @return client serving space summaries from the cache, all other calls are passed through
+     */
+    public CcOperations wrap(CcOperations delegate, String token) {
+        Objects.requireNonNull(delegate);
+        Objects.requireNonNull(token);
+        return (CcOperations) Proxy.newProxyInstance(CcOperations.class.getClassLoader(),
+            new Class<?>[] {CcOperations.class}, new Handler(delegate, token));
+    }
+
+    /**
+     * @param userClient client of the user reading the summary
+     * @param token user's token
+     * @param space unique space identifier
+     * @return summary of the space, possibly stale
+     * @throws AccessDeniedException when user is not a member of the space
+     */
+    public CcSummary getSpaceSummary(CcOperations userClient, String token, UUID space) {
+        checkMembership(userClient, token, space);
+        try {
+            return summaries.getUnchecked(space);
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param space unique space identifier
+     */
+    public void evictSpace(UUID space) {
+        if (space != null) {
+            LOGGER.debug("Summary of space {} evicted", space);
+            summaries.invalidate(space);
+        }
+    }
+
+    /**
+     * Evicts summary of the space the service instance belongs to. All summaries are evicted when the space
+     * is not known.
+     *
+     * @param instance unique service instance identifier
+     */
+    public void evictInstance(UUID instance) {
+        evictSpaceOf(take(instanceSpaces, instance));
+    }
+
+    /**
+     * Evicts summary of the space the application belongs to. All summaries are evicted when the space
+     * is not known.
+     *
+     * @param app unique application identifier
+     */
+    public void evictApp(UUID app) {
+        evictSpaceOf(take(appSpaces, app));
+    }
+
+    public void evictAll() {
+        LOGGER.debug("All summaries evicted");
+        summaries.invalidateAll();
+    }
+
+    private static Cache<UUID, UUID> spacesOfResources(long maxAgeMillis) {
+        return CacheBuilder.newBuilder()
+            .maximumSize(MAX_TRACKED_RESOURCES)
+            .expireAfterWrite(maxAgeMillis, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    private static UUID take(Cache<UUID, UUID> spaces, UUID resource) {
+        UUID space = spaces.getIfPresent(resource);
+        spaces.invalidate(resource);
+        return space;
+    }
+
+    private void evictSpaceOf(UUID space) {
+        if (space == null) {
+            evictAll();
+        } else {
+            evictSpace(space);
+        }
+    }
+
+    private void checkMembership(CcOperations userClient, String token, UUID space) {
+        String key = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        Set<UUID> spaces = memberships.getIfPresent(key);
+        if (spaces == null || !spaces.contains(space)) {
+            spaces = ImmutableSet.copyOf(userClient.getSpaces().map(CcSpace::getGuid).toList().toBlocking().single());
+            memberships.put(key, spaces);
+        }
+        if (!spaces.contains(space)) {
+            throw new AccessDeniedException("Permission denied to access space: " + space);
+        }
+    }
+
+    private CcSummary fetch(UUID space) {
+        LOGGER.debug("Fetching summary of space {}", space);
+        CcSummary summary = privilegedClient.getSpaceSummary(space);
+        Optional.ofNullable(summary.getServiceInstances()).map(Collection::stream).ifPresent(instances ->
+            instances.map(CcServiceInstance::getGuid).filter(Objects::nonNull)
+                .forEach(instance -> instanceSpaces.put(instance, space)));
+        Optional.ofNullable(summary.getApps()).map(Collection::stream).ifPresent(apps ->
+            apps.map(CcApp::getGuid).filter(Objects::nonNull)
+                .forEach(app -> appSpaces.put(app, space)));
+        return summary;
+    }
+
+    private class Handler implements InvocationHandler {
+        private final CcOperations delegate;
+        private final String token;
+
+        private Handler(CcOperations delegate, String token) {
+            this.delegate = delegate;
+            this.token = token;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (GET_SPACE_SUMMARY.equals(method.getName()) && args != null && args.length == 1
+                && args[0] instanceof UUID) {
+                return getSpaceSummary(delegate, token, (UUID) args[0]);
+            }
+
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
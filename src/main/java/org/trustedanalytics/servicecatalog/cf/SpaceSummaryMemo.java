@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.cf;
+
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcSummary;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoizes space summaries fetched through single {@link CcOperations} instance, all other calls are passed
+ * through. User's Cloud Controller client is request scoped, so a request never fetches summary of the same
+ * space twice.
+ */
+public class SpaceSummaryMemo implements InvocationHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpaceSummaryMemo.class);
+
+    public static final String SAVED_CALLS_METRIC = "counter.cc.summary.memo.saved";
+
+    private static final String GET_SPACE_SUMMARY = "getSpaceSummary";
+
+    private final CcOperations delegate;
+    private final CounterService counterService;
+    private final Map<UUID, CcSummary> summaries = new ConcurrentHashMap<>();
+
+    private SpaceSummaryMemo(CcOperations delegate, CounterService counterService) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.counterService = Objects.requireNonNull(counterService);
+    }
+
+    /**
+     * @param delegate client to be wrapped
+     * @param counterService counter of Cloud Controller calls saved by memoization
+     * @return client memoizing space summaries
+     */
+    public static CcOperations wrap(CcOperations delegate, CounterService counterService) {
+        return (CcOperations) Proxy.newProxyInstance(CcOperations.class.getClassLoader(),
+            new Class<?>[] {CcOperations.class}, new SpaceSummaryMemo(delegate, counterService));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (GET_SPACE_SUMMARY.equals(method.getName()) && args != null && args.length == 1
+            && args[0] instanceof UUID) {
+            return getSpaceSummary((UUID) args[0]);
+        }
+
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private CcSummary getSpaceSummary(UUID space) {
+        CcSummary summary = summaries.get(space);
+        if (summary != null) {
+            LOGGER.debug("Summary of space {} taken from memo", space);
+            counterService.increment(SAVED_CALLS_METRIC);
+            return summary;
+        }
+        return summaries.computeIfAbsent(space, delegate::getSpaceSummary);
+    }
+}
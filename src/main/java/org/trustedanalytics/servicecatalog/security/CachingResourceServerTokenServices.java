@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches authentications of verified access tokens, so the same token is not verified and converted again
+ * on every request. Cache is keyed by token hash and entries are dropped once the token expires.
+ *
+ * Callers set details of the returned authentication, so every call returns a copy of cached one.
+ */
+public class CachingResourceServerTokenServices implements ResourceServerTokenServices {
+
+    public static final String HIT_METRIC = "counter.security.token.cache.hit";
+    public static final String MISS_METRIC = "counter.security.token.cache.miss";
+    public static final String VERIFICATION_TIME_METRIC = "gauge.security.token.verification.time";
+
+    private static final String EXPIRATION = "exp";
+
+    private final ResourceServerTokenServices delegate;
+    private final CounterService counterService;
+    private final GaugeService gaugeService;
+    private final Cache<String, CachedAuthentication> authentications;
+
+    public CachingResourceServerTokenServices(ResourceServerTokenServices delegate, CounterService counterService,
+        GaugeService gaugeService, long maxSize) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.counterService = Objects.requireNonNull(counterService);
+        this.gaugeService = Objects.requireNonNull(gaugeService);
+        this.authentications = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .build();
+    }
+
+    @Override
+    public OAuth2Authentication loadAuthentication(String accessToken)
+        throws AuthenticationException, InvalidTokenException {
+        String key = Hashing.sha256().hashString(accessToken, StandardCharsets.UTF_8).toString();
+
+        CachedAuthentication cached = authentications.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            counterService.increment(HIT_METRIC);
+            return copy(cached.authentication);
+        }
+        if (cached != null) {
+            authentications.invalidate(key);
+        }
+        counterService.increment(MISS_METRIC);
+
+        long start = System.nanoTime();
+        OAuth2Authentication authentication = delegate.loadAuthentication(accessToken);
+        gaugeService.submit(VERIFICATION_TIME_METRIC, (System.nanoTime() - start) / 1e6);
+
+        if (authentication != null) {
+            authentications.put(key, new CachedAuthentication(copy(authentication), getExpiration(accessToken)));
+        }
+        return authentication;
+    }
+
+    @Override
+    public OAuth2AccessToken readAccessToken(String accessToken) {
+        return delegate.readAccessToken(accessToken);
+    }
+
+    private static OAuth2Authentication copy(OAuth2Authentication authentication) {
+        OAuth2Authentication copy =
+            new OAuth2Authentication(authentication.getOAuth2Request(), authentication.getUserAuthentication());
+        copy.setDetails(authentication.getDetails());
+        copy.setAuthenticated(authentication.isAuthenticated());
+        return copy;
+    }
+
+    /**
+     * Token has been verified by delegate already, so claims are only decoded here.
+     *
+     * @return expiration time in milliseconds, or {@link Long#MAX_VALUE} when token has no expiration
+     */
+    private static long getExpiration(String accessToken) {
+        Map<String, Object> claims = JsonParserFactory.create().parseMap(JwtHelper.decode(accessToken).getClaims());
+        Object exp = claims.get(EXPIRATION);
+        return exp instanceof Number
+            ? TimeUnit.SECONDS.toMillis(((Number) exp).longValue())
+            : Long.MAX_VALUE;
+    }
+
+    private static class CachedAuthentication {
+        private final OAuth2Authentication authentication;
+        private final long expiresAt;
+
+        private CachedAuthentication(OAuth2Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
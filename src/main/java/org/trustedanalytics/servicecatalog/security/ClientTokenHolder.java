@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.AccessTokenProvider;
+import org.springframework.security.oauth2.client.token.DefaultAccessTokenRequest;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps client credentials token shared by all requests of privileged Cloud Controller client. Token is
+ * refreshed in the background shortly before it expires, so requests do not wait for UAA. It is fetched on
+ * the calling thread only when there is no valid token yet, e.g. after background refreshes failed.
+ */
+public class ClientTokenHolder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientTokenHolder.class);
+
+    public static final String REFRESH_TIME_METRIC = "gauge.uaa.client_token.refresh.time";
+    public static final String REFRESH_FAILURES_METRIC = "counter.uaa.client_token.refresh.failures";
+
+    private final OAuth2ProtectedResourceDetails clientCredentials;
+    private final AccessTokenProvider tokenProvider;
+    private final CounterService counterService;
+    private final GaugeService gaugeService;
+    private final long refreshMarginMillis;
+
+    private volatile OAuth2AccessToken token;
+
+    public ClientTokenHolder(OAuth2ProtectedResourceDetails clientCredentials, AccessTokenProvider tokenProvider,
+        CounterService counterService, GaugeService gaugeService, long refreshMarginMillis) {
+        this.clientCredentials = Objects.requireNonNull(clientCredentials);
+        this.tokenProvider = Objects.requireNonNull(tokenProvider);
+        this.counterService = Objects.requireNonNull(counterService);
+        this.gaugeService = Objects.requireNonNull(gaugeService);
+        this.refreshMarginMillis = refreshMarginMillis;
+    }
+
+    /**
+     * @return value of valid client credentials token
+     */
+    public String getToken() {
+        OAuth2AccessToken current = token;
+        if (expiresWithin(current, 0)) {
+            synchronized (this) {
+                current = token;
+                if (expiresWithin(current, 0)) {
+                    current = refresh();
+                }
+            }
+        }
+        return current.getValue();
+    }
+
+    /**
+     * Refreshes token which is about to expire. When refresh fails, current token is kept until it expires.
+     */
+    @Scheduled(fixedDelayString = "${oauth.client.token.check:10000}")
+    public void refreshIfExpiring() {
+        if (!expiresWithin(token, refreshMarginMillis)) {
+            return;
+        }
+        synchronized (this) {
+            if (expiresWithin(token, refreshMarginMillis)) {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Background refresh of client token failed", e);
+                }
+            }
+        }
+    }
+
+    private OAuth2AccessToken refresh() {
+        long start = System.nanoTime();
+        try {
+            OAuth2AccessToken refreshed = tokenProvider.obtainAccessToken(clientCredentials,
+                new DefaultAccessTokenRequest());
+            token = refreshed;
+            LOGGER.debug("Client token refreshed, expires at {}", refreshed.getExpiration());
+            return refreshed;
+        } catch (RuntimeException e) {
+            counterService.increment(REFRESH_FAILURES_METRIC);
+            throw new TokenFetchException("Failed to fetch client token from "
+                + clientCredentials.getAccessTokenUri(), e);
+        } finally {
+            gaugeService.submit(REFRESH_TIME_METRIC,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private static boolean expiresWithin(OAuth2AccessToken token, long millis) {
+        if (token == null) {
+            return true;
+        }
+        if (token.getExpiration() == null) {
+            return false;
+        }
+        return token.getExpiration().getTime() - System.currentTimeMillis() <= millis;
+    }
+}
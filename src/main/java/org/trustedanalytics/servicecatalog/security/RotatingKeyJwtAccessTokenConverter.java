@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.security;
+
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.MacSigner;
+import org.springframework.security.jwt.crypto.sign.RsaVerifier;
+import org.springframework.security.jwt.crypto.sign.SignatureVerifier;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.common.util.JsonParser;
+import org.springframework.security.oauth2.common.util.JsonParserFactory;
+import org.springframework.security.oauth2.provider.token.AccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Verifies tokens with the current key of {@link VerifierKeyProvider}. When verification fails, the key may have
+ * been rotated, so provider is asked to fetch it again and the token is verified once more with the new key.
+ */
+public class RotatingKeyJwtAccessTokenConverter extends JwtAccessTokenConverter {
+
+    private static final String PEM_PREFIX = "-----BEGIN";
+
+    private final VerifierKeyProvider keyProvider;
+    private final JsonParser jsonParser = JsonParserFactory.create();
+
+    private volatile KeyVerifier keyVerifier;
+
+    public RotatingKeyJwtAccessTokenConverter(VerifierKeyProvider keyProvider) {
+        this.keyProvider = Objects.requireNonNull(keyProvider);
+    }
+
+    @Override
+    protected Map<String, Object> decode(String token) {
+        try {
+            return decode(token, getVerifier());
+        } catch (InvalidTokenException e) {
+            if (keyProvider.refreshNow()) {
+                return decode(token, getVerifier());
+            }
+            throw e;
+        }
+    }
+
+    private Map<String, Object> decode(String token, SignatureVerifier verifier) {
+        try {
+            Map<String, Object> claims = jsonParser.parseMap(JwtHelper.decodeAndVerify(token, verifier).getClaims());
+            Object exp = claims.get(AccessTokenConverter.EXP);
+            if (exp instanceof Integer) {
+                claims.put(AccessTokenConverter.EXP, Long.valueOf((Integer) exp));
+            }
+            return claims;
+        } catch (RuntimeException e) {
+            throw new InvalidTokenException("Cannot convert access token to JSON", e);
+        }
+    }
+
+    private SignatureVerifier getVerifier() {
+        String key = keyProvider.getKey()
+            .orElseThrow(() -> new InvalidTokenException("Token verifier key is not available yet"));
+        KeyVerifier current = keyVerifier;
+        if (current == null || !current.key.equals(key)) {
+            current = new KeyVerifier(key, key.startsWith(PEM_PREFIX) ? new RsaVerifier(key) : new MacSigner(key));
+            keyVerifier = current;
+        }
+        return current.verifier;
+    }
+
+    private static class KeyVerifier {
+        private final String key;
+        private final SignatureVerifier verifier;
+
+        private KeyVerifier(String key, SignatureVerifier verifier) {
+            this.key = key;
+            this.verifier = verifier;
+        }
+    }
+}
@@ -17,11 +17,19 @@
 package org.trustedanalytics.servicecatalog.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
 import org.springframework.cloud.security.oauth2.resource.ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.DefaultTokenServices;
 import org.springframework.security.oauth2.provider.token.DefaultUserAuthenticationConverter;
@@ -30,9 +38,9 @@ import org.springframework.security.oauth2.provider.token.TokenStore;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
 import org.springframework.util.StringUtils;
-import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.file.Paths;
 import java.util.Map;
 
 /**
@@ -46,12 +54,33 @@ public class SecurityConfig {
     @Autowired
     private ResourceServerProperties resource;
 
+    @Autowired
+    private CounterService counterService;
+
+    @Autowired
+    private GaugeService gaugeService;
+
+    @Value("${security.token.cache.size:10000}")
+    private long tokenCacheSize;
+
+    @Value("${security.jwt.keyFile:}")
+    private String keyFile;
+
+    @Value("${security.jwt.keyRefresh:600000}")
+    private long keyRefreshInterval;
+
+    @Value("${security.jwt.keyMinRefresh:5000}")
+    private long keyMinRefreshInterval;
+
+    @Value("${security.jwt.keyMaxBackoff:300000}")
+    private long keyMaxBackoff;
+
     @Order(1)
     @Bean
     public ResourceServerTokenServices jwtTokenServices() {
         DefaultTokenServices services = new DefaultTokenServices();
         services.setTokenStore(tokenStore());
-        return services;
+        return new CachingResourceServerTokenServices(services, counterService, gaugeService, tokenCacheSize);
     }
 
     @Bean
@@ -61,29 +90,53 @@ public class SecurityConfig {
 
     @Bean
     public JwtAccessTokenConverter myjwtTokenEnhancer() {
-        JwtAccessTokenConverter converter = new JwtAccessTokenConverter();
         DefaultAccessTokenConverter accessTokenConverter = new DefaultAccessTokenConverter();
         DefaultUserAuthenticationConverter userTokenConverter = new JwtUserDetailsTokenConverter();
         accessTokenConverter.setUserTokenConverter(userTokenConverter);
-        converter.setAccessTokenConverter(accessTokenConverter);
 
         String keyValue = resource.getJwt().getKeyValue();
         if (!StringUtils.hasText(keyValue)) {
-            try {
-                keyValue = (String) new RestTemplate().getForObject(
-                        resource.getJwt().getKeyUri(), Map.class).get("value");
-            }
-            catch (ResourceAccessException e) {
-                throw new TokenFetchException("Failed to fetch token key from " + resource.getJwt().getKeyUri(), e);
-            }
+            JwtAccessTokenConverter converter = new RotatingKeyJwtAccessTokenConverter(verifierKeyProvider());
+            converter.setAccessTokenConverter(accessTokenConverter);
+            return converter;
         }
-        else {
-            if (StringUtils.hasText(keyValue) && !keyValue.startsWith("-----BEGIN")) {
-                converter.setSigningKey(keyValue);
-            }
+
+        JwtAccessTokenConverter converter = new JwtAccessTokenConverter();
+        converter.setAccessTokenConverter(accessTokenConverter);
+        if (!keyValue.startsWith("-----BEGIN")) {
+            converter.setSigningKey(keyValue);
         }
         converter.setVerifierKey(keyValue);
-
         return converter;
     }
+
+    /**
+     * Token key is fetched from UAA in the background, so the application starts even when UAA is slow
+     * or unavailable. Not created when the key is given with spring.oauth2.resource.jwt.keyValue.
+     */
+    @Bean
+    @Conditional(NoKeyValueCondition.class)
+    public VerifierKeyProvider verifierKeyProvider() {
+        String keyUri = resource.getJwt().getKeyUri();
+        return new VerifierKeyProvider(() -> {
+            try {
+                Map<?, ?> key = new RestTemplate().getForObject(keyUri, Map.class);
+                if (key == null || !(key.get("value") instanceof String)) {
+                    throw new IllegalStateException("No token key in response");
+                }
+                return (String) key.get("value");
+            } catch (RuntimeException e) {
+                throw new TokenFetchException("Failed to fetch token key from " + keyUri, e);
+            }
+        }, StringUtils.hasText(keyFile) ? Paths.get(keyFile) : null,
+            keyRefreshInterval, keyMinRefreshInterval, keyMaxBackoff);
+    }
+
+    private static class NoKeyValueCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return !StringUtils.hasText(new RelaxedPropertyResolver(context.getEnvironment(),
+                "spring.oauth2.resource.jwt.").getProperty("keyValue"));
+        }
+    }
 }
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Provides key verifying access tokens without blocking application startup on UAA.
+ *
+ * Starts with the key persisted by previous run (if any), then fetches the key in the background: periodically
+ * after success, with exponential backoff after failures. Fetched key is persisted for the next start. Token
+ * verification failure may also trigger immediate fetch, to pick up rotated key, but not more often than the
+ * configured minimal interval.
+ */
+public class VerifierKeyProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VerifierKeyProvider.class);
+
+    private final Supplier<String> keySource;
+    private final Path keyFile;
+    private final long refreshIntervalMillis;
+    private final long minRefreshIntervalMillis;
+    private final long maxBackoffMillis;
+
+    private volatile String key;
+    private long nextFetchAt;
+    private long lastFetchAt;
+    private int failures;
+
+    public VerifierKeyProvider(Supplier<String> keySource, Path keyFile, long refreshIntervalMillis,
+        long minRefreshIntervalMillis, long maxBackoffMillis) {
+        this.keySource = Objects.requireNonNull(keySource);
+        this.keyFile = keyFile;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.minRefreshIntervalMillis = minRefreshIntervalMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.key = readPersistedKey().orElse(null);
+    }
+
+    /**
+     * @return current verifier key, empty when it has not been fetched yet
+     */
+    public Optional<String> getKey() {
+        return Optional.ofNullable(key);
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.keyCheck:1000}")
+    public synchronized void refreshIfDue() {
+        if (System.currentTimeMillis() >= nextFetchAt) {
+            fetch();
+        }
+    }
+
+    /**
+     * Fetches the key right away, unless it has been fetched recently.
+     *
+     * @return true when fetched key differs from the previous one
+     */
+    public synchronized boolean refreshNow() {
+        if (System.currentTimeMillis() - lastFetchAt < minRefreshIntervalMillis) {
+            return false;
+        }
+        String previous = key;
+        fetch();
+        return !Objects.equals(previous, key);
+    }
+
+    private void fetch() {
+        long now = System.currentTimeMillis();
+        lastFetchAt = now;
+        try {
+            String fetched = keySource.get();
+            if (!StringUtils.hasText(fetched)) {
+                throw new IllegalStateException("Empty token key received");
+            }
+            if (!fetched.equals(key)) {
+                LOGGER.info("Token verifier key {}", key == null ? "loaded" : "rotated");
+                key = fetched;
+                persist(fetched);
+            }
+            failures = 0;
+            nextFetchAt = now + refreshIntervalMillis;
+        } catch (RuntimeException e) {
+            failures++;
+            long backoff = Math.min(maxBackoffMillis, minRefreshIntervalMillis << Math.min(failures - 1, 20));
+            nextFetchAt = now + backoff;
+            LOGGER.warn("Failed to fetch token key, attempt {}, next in {} ms", failures, backoff, e);
+        }
+    }
+
+    private Optional<String> readPersistedKey() {
+        if (keyFile == null || !Files.isReadable(keyFile)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new String(Files.readAllBytes(keyFile), StandardCharsets.UTF_8))
+                .filter(StringUtils::hasText);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read persisted token key from {}", keyFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private void persist(String value) {
+        if (keyFile == null) {
+            return;
+        }
+        try {
+            Path temp = Files.createTempFile(keyFile.toAbsolutePath().getParent(), "token-key", ".tmp");
+            Files.write(temp, value.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, keyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to persist token key to {}", keyFile, e);
+        }
+    }
+}
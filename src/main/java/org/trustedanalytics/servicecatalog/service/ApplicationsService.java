@@ -22,6 +22,7 @@ import org.trustedanalytics.cloud.cc.api.CcAppSummary;
 import org.trustedanalytics.cloud.cc.api.CcOperations;
 import org.trustedanalytics.cloud.cc.api.CcServiceInstance;
 import org.trustedanalytics.cloud.cc.api.CcSummary;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,11 +43,13 @@ import java.util.stream.Collectors;
 public class ApplicationsService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationsService.class);
     private final CcOperations ccOperations;
+    private final InvalidationBus invalidationBus;
     private final Predicate<CcServiceInstance> orphanServices = service -> service.getBoundAppCount() == 1;
 
     @Autowired
-    public ApplicationsService(CcOperations ccClient) {
+    public ApplicationsService(CcOperations ccClient, InvalidationBus invalidationBus) {
         this.ccOperations = Objects.requireNonNull(ccClient);
+        this.invalidationBus = Objects.requireNonNull(invalidationBus);
     }
 
     /**
@@ -93,6 +96,7 @@ public class ApplicationsService {
      */
     public void restageApp(UUID app) {
         ccOperations.restageApp(app);
+        invalidationBus.publish(InvalidationBus.Kind.APP, app);
     }
 
     /**
@@ -101,6 +105,7 @@ public class ApplicationsService {
     public void deleteApp(UUID app) {
         LOGGER.info("DeleteApp");
         ccOperations.deleteApp(app);
+        invalidationBus.publish(InvalidationBus.Kind.APP, app);
     }
 
     /**
@@ -109,6 +114,7 @@ public class ApplicationsService {
     public void switchApp(UUID app, CcAppStatus appStatus) {
         LOGGER.info("SwitchApp");
         ccOperations.switchApp(app, appStatus);
+        invalidationBus.publish(InvalidationBus.Kind.APP, app);
     }
 
     /**
@@ -121,6 +127,7 @@ public class ApplicationsService {
         final Collection<CcServiceInstance> orphans = getAppServices(app, orphanServices);
         deleteApp(app);
         orphans.forEach(service -> ccOperations.deleteServiceInstance(service.getGuid()));
+        invalidationBus.publish(InvalidationBus.Kind.APP, app);
     }
 
     /**
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service;
+
+import feign.FeignException;
+import feign.Response;
+import feign.Util;
+import feign.jackson.JacksonDecoder;
+import org.trustedanalytics.servicecatalog.service.model.ServiceBroker;
+import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Caching decorator of {@link CatalogOperations}.
+ *
+ * Keeps indexed snapshot of the broker catalog. After snapshot expires it is revalidated with conditional request
+ * (when broker returned ETag), so unchanged catalog is not downloaded and decoded again. Snapshot is dropped
+ * whenever catalog is modified through this instance.
+ */
+public class CachingCatalogOperations implements CatalogOperations {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingCatalogOperations.class);
+
+    private static final int NOT_MODIFIED = 304;
+    private static final String ETAG = "ETag";
+    private static final String GET_CATALOG = "CatalogOperations#getCatalog()";
+
+    private final CatalogOperations delegate;
+    private final long ttlMillis;
+    private final JacksonDecoder decoder = new JacksonDecoder();
+
+    private volatile CachedCatalog cached;
+
+    public CachingCatalogOperations(CatalogOperations delegate, long ttlMillis) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * @return indexed catalog, fetched from the broker only when cached one has expired
+     */
+    public CatalogSnapshot getSnapshot() {
+        CachedCatalog current = cached;
+        if (current == null || current.isExpired()) {
+            synchronized (this) {
+                current = cached;
+                if (current == null || current.isExpired()) {
+                    current = revalidate(current);
+                    cached = current;
+                }
+            }
+        }
+        return current.snapshot;
+    }
+
+    /**
+     * Drops cached catalog, so the next read fetches it from the broker.
+     */
+    public synchronized void invalidate() {
+        cached = null;
+    }
+
+    @Override
+    public ServiceBroker getCatalog() {
+        return getSnapshot().getCatalog();
+    }
+
+    @Override
+    public Response getCatalogResponse() {
+        return delegate.getCatalogResponse();
+    }
+
+    @Override
+    public Response getCatalogResponse(String etag) {
+        return delegate.getCatalogResponse(etag);
+    }
+
+    @Override
+    public Object register(ServiceRegistrationRequest application) {
+        try {
+            return delegate.register(application);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void deregister(String service) {
+        try {
+            delegate.deregister(service);
+        } finally {
+            invalidate();
+        }
+    }
+
+    private CachedCatalog revalidate(CachedCatalog current) {
+        Optional<String> etag = Optional.ofNullable(current).map(c -> c.etag);
+        Response response = etag.isPresent()
+            ? delegate.getCatalogResponse(etag.get())
+            : delegate.getCatalogResponse();
+
+        try {
+            if (response.status() == NOT_MODIFIED && current != null) {
+                LOGGER.debug("Broker catalog not modified");
+                return new CachedCatalog(current.snapshot, current.etag, expiry());
+            }
+            if (response.status() < 200 || response.status() >= 300) {
+                throw FeignException.errorStatus(GET_CATALOG, response);
+            }
+
+            ServiceBroker catalog = (ServiceBroker) decoder.decode(response, ServiceBroker.class);
+            LOGGER.debug("Broker catalog fetched");
+            return new CachedCatalog(CatalogSnapshot.of(Optional.ofNullable(catalog).orElse(new ServiceBroker())),
+                header(response, ETAG), expiry());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode broker catalog", e);
+        } finally {
+            Util.ensureClosed(response.body());
+        }
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private static String header(Response response, String name) {
+        return response.headers().entrySet().stream()
+            .filter(header -> name.equalsIgnoreCase(header.getKey()))
+            .map(Map.Entry::getValue)
+            .filter(Objects::nonNull)
+            .flatMap(Collection::stream)
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static class CachedCatalog {
+        private final CatalogSnapshot snapshot;
+        private final String etag;
+        private final long expiresAt;
+
+        private CachedCatalog(CatalogSnapshot snapshot, String etag, long expiresAt) {
+            this.snapshot = snapshot;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
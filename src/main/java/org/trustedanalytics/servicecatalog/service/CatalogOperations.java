@@ -15,8 +15,10 @@
  */
 package org.trustedanalytics.servicecatalog.service;
 
+import feign.Headers;
 import feign.Param;
 import feign.RequestLine;
+import feign.Response;
 import org.trustedanalytics.servicecatalog.service.model.ServiceBroker;
 import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationRequest;
 
@@ -25,6 +27,13 @@ public interface CatalogOperations {
     @RequestLine("GET /v2/catalog")
     ServiceBroker getCatalog();
 
+    @RequestLine("GET /v2/catalog")
+    Response getCatalogResponse();
+
+    @RequestLine("GET /v2/catalog")
+    @Headers("If-None-Match: {etag}")
+    Response getCatalogResponse(@Param("etag") String etag);
+
     @RequestLine("POST /v2/catalog")
     Object register(ServiceRegistrationRequest application);
 
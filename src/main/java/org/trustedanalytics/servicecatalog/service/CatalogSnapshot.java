@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service;
+
+import org.trustedanalytics.cloud.cc.api.CcMetadata;
+import org.trustedanalytics.servicecatalog.service.model.ServiceBroker;
+import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationApp;
+import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Immutable view of application broker catalog, indexed by catalog item id and by guid of the application
+ * the item was registered from.
+ */
+public class CatalogSnapshot {
+
+    private final Collection<ServiceRegistrationRequest> services;
+    private final Map<UUID, ServiceRegistrationRequest> servicesById = new HashMap<>();
+    private final Map<UUID, List<ServiceRegistrationRequest>> servicesByApp = new HashMap<>();
+
+    private CatalogSnapshot(Collection<ServiceRegistrationRequest> services) {
+        this.services = Collections.unmodifiableCollection(services);
+        for (ServiceRegistrationRequest item : services) {
+            Optional.ofNullable(item.getId()).ifPresent(id -> servicesById.put(id, item));
+            Optional.ofNullable(item.getApp())
+                .map(ServiceRegistrationApp::getMetadata)
+                .map(CcMetadata::getGuid)
+                .ifPresent(app -> servicesByApp.computeIfAbsent(app, key -> new ArrayList<>()).add(item));
+        }
+    }
+
+    public static CatalogSnapshot of(ServiceBroker catalog) {
+        return new CatalogSnapshot(Optional.ofNullable(catalog.getServices()).orElse(Collections.emptyList()));
+    }
+
+    /**
+     * @return copy of the catalog
+     */
+    public ServiceBroker getCatalog() {
+        ServiceBroker catalog = new ServiceBroker();
+        catalog.setServices(new ArrayList<>(services));
+        return catalog;
+    }
+
+    /**
+     * @return all catalog items
+     */
+    public Collection<ServiceRegistrationRequest> getServices() {
+        return services;
+    }
+
+    /**
+     * @param id catalog item id (unique id of service offering)
+     * @return catalog item with given id
+     */
+    public Optional<ServiceRegistrationRequest> getService(UUID id) {
+        return Optional.ofNullable(servicesById.get(id));
+    }
+
+    /**
+     * @param uniqueId unique id of service offering, as reported by Cloud Controller
+     * @return catalog item with given id, empty when id is not a valid UUID
+     */
+    public Optional<ServiceRegistrationRequest> getService(String uniqueId) {
+        try {
+            return getService(UUID.fromString(uniqueId));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param app unique application identifier
+     * @return catalog items registered from given application, in catalog order
+     */
+    public List<ServiceRegistrationRequest> getServicesByApp(UUID app) {
+        return Collections.unmodifiableList(servicesByApp.getOrDefault(app, Collections.emptyList()));
+    }
+}
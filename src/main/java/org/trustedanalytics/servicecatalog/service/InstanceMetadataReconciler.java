@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service;
+
+import org.trustedanalytics.servicecatalog.cf.ServiceInstancesOperations;
+import org.trustedanalytics.servicecatalog.storage.ClusterLock;
+import org.trustedanalytics.servicecatalog.storage.ServiceInstanceRegistry;
+
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.RateLimiter;
+
+import feign.Response;
+import feign.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Removes creator metadata of service instances which no longer exist, e.g. were deleted with cf CLI.
+ *
+ * Metadata store is walked in batches, existence of instances in a batch is checked concurrently with privileged
+ * client. Only instances Cloud Controller reports as not found are treated as orphans, and they are removed
+ * at limited rate.
+ *
+ * Pass runs on one node at a time, guarded by {@link ClusterLock}; it can also be switched off on a node with
+ * storage.reconcile.enabled. Pass stops without removing anything more when share of orphans in a batch, or in
+ * all entries checked so far, goes over storage.reconcile.maxOrphanRatio, as that rather means Cloud Controller
+ * misbehaves (e.g. privileged client points to another environment) than that instances were deleted.
+ */
+@Component
+public class InstanceMetadataReconciler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstanceMetadataReconciler.class);
+
+    public static final String CHECKED_METRIC = "gauge.storage.reconcile.checked";
+    public static final String THROUGHPUT_METRIC = "gauge.storage.reconcile.throughput";
+    public static final String RECLAIMED_METRIC = "counter.storage.reconcile.reclaimed";
+    public static final String ABORTED_METRIC = "counter.storage.reconcile.aborted";
+
+    private static final String LOCK = "instance-metadata-reconciler";
+
+    private static final int NOT_FOUND = 404;
+    private static final int CHECK_CONCURRENCY = 8;
+
+    private final ServiceInstanceRegistry registry;
+    private final ServiceInstancesOperations instancesClient;
+    private final CounterService counterService;
+    private final GaugeService gaugeService;
+    private final ClusterLock clusterLock;
+    private final boolean enabled;
+    private final int batchSize;
+    private final RateLimiter removals;
+    private final double maxOrphanRatio;
+    private final long lockTtlMillis;
+
+    @Autowired
+    public InstanceMetadataReconciler(ServiceInstanceRegistry serviceInstanceRegistry,
+        ServiceInstancesOperations ccPrivilegedServiceInstancesClient,
+        CounterService counterService,
+        GaugeService gaugeService,
+        ClusterLock clusterLock,
+        @Value("${storage.reconcile.enabled:true}") boolean enabled,
+        @Value("${storage.reconcile.batch:100}") int batchSize,
+        @Value("${storage.reconcile.removalsPerSecond:10}") double removalsPerSecond,
+        @Value("${storage.reconcile.maxOrphanRatio:0.5}") double maxOrphanRatio,
+        @Value("${storage.reconcile.lockTtl:600000}") long lockTtlMillis) {
+        this.registry = Objects.requireNonNull(serviceInstanceRegistry);
+        this.instancesClient = Objects.requireNonNull(ccPrivilegedServiceInstancesClient);
+        this.counterService = Objects.requireNonNull(counterService);
+        this.gaugeService = Objects.requireNonNull(gaugeService);
+        this.clusterLock = Objects.requireNonNull(clusterLock);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.removals = RateLimiter.create(removalsPerSecond);
+        this.maxOrphanRatio = maxOrphanRatio;
+        this.lockTtlMillis = lockTtlMillis;
+    }
+
+    @Scheduled(initialDelayString = "${storage.reconcile.initialDelay:600000}",
+        fixedDelayString = "${storage.reconcile.interval:3600000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Walks whole metadata store once, unless other node is doing so. Pass interrupted by an error is resumed
+     * from scratch by the next run.
+     *
+     * @return number of removed entries
+     */
+    long reconcile() {
+        if (!enabled) {
+            return 0;
+        }
+        if (!clusterLock.tryLock(LOCK, lockTtlMillis)) {
+            LOGGER.debug("Instance metadata reconciled by another node, pass skipped");
+            return 0;
+        }
+        try {
+            return reconcileLocked();
+        } finally {
+            clusterLock.unlock(LOCK);
+        }
+    }
+
+    private long reconcileLocked() {
+        long start = System.nanoTime();
+        long checked = 0;
+        long reclaimed = 0;
+
+        try (Stream<UUID> instances = registry.scanInstanceCreators(batchSize).map(Map.Entry::getKey)) {
+            Iterator<List<UUID>> batches = Iterators.partition(instances.iterator(), batchSize);
+            while (batches.hasNext()) {
+                List<UUID> batch = batches.next();
+                List<UUID> orphans = findOrphans(batch);
+                if (tooManyOrphans(orphans.size(), batch.size())
+                    || tooManyOrphans(reclaimed + orphans.size(), checked + batch.size())) {
+                    LOGGER.warn("Reconciliation of instance metadata stopped, {} of {} instances in the batch and "
+                        + "{} of {} checked so far are unknown to Cloud Controller", orphans.size(), batch.size(),
+                        reclaimed + orphans.size(), checked + batch.size());
+                    counterService.increment(ABORTED_METRIC);
+                    break;
+                }
+                if (!clusterLock.renew(LOCK, lockTtlMillis)) {
+                    LOGGER.warn("Lock of instance metadata reconciliation lost after {} entries", checked);
+                    break;
+                }
+                for (UUID orphan : orphans) {
+                    removals.acquire();
+                    registry.deleteInstanceCreator(orphan);
+                    counterService.increment(RECLAIMED_METRIC);
+                    reclaimed++;
+                }
+                checked += batch.size();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Reconciliation of instance metadata interrupted after {} entries", checked, e);
+        }
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        gaugeService.submit(CHECKED_METRIC, checked);
+        gaugeService.submit(THROUGHPUT_METRIC, checked * 1000.0 / elapsedMillis);
+        LOGGER.info("Instance metadata reconciled, {} entries checked, {} orphans removed in {} ms",
+            checked, reclaimed, elapsedMillis);
+        return reclaimed;
+    }
+
+    private boolean tooManyOrphans(long orphans, long checked) {
+        return checked >= batchSize && orphans > checked * maxOrphanRatio;
+    }
+
+    private List<UUID> findOrphans(List<UUID> instances) {
+        return Observable.merge(Observable.from(instances)
+                .map(instance -> Observable.defer(() -> Observable.just(exists(instance) ? null : instance))
+                    .subscribeOn(Schedulers.io())),
+            CHECK_CONCURRENCY)
+            .filter(Objects::nonNull)
+            .toList()
+            .toBlocking()
+            .single();
+    }
+
+    private boolean exists(UUID instance) {
+        Response response = instancesClient.getServiceInstance(instance);
+        try {
+            if (response.status() == NOT_FOUND) {
+                return false;
+            }
+            if (response.status() < 200 || response.status() >= 300) {
+                LOGGER.warn("Existence of instance {} unknown, Cloud Controller responded {}", instance,
+                    response.status());
+            }
+            return true;
+        } finally {
+            Util.ensureClosed(response.body());
+        }
+    }
+}
@@ -18,13 +18,16 @@ package org.trustedanalytics.servicecatalog.service;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_IMPLEMENTED;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
 
 import org.springframework.beans.TypeMismatchException;
 import org.trustedanalytics.cloud.cc.api.CcOutputBadFormatted;
 import org.trustedanalytics.cloud.cc.api.customizations.CloudFoundryException;
 import org.trustedanalytics.cloud.cc.api.customizations.FeignResponseException;
+import org.trustedanalytics.servicecatalog.service.rest.CloudControllerTimeoutException;
 import org.trustedanalytics.servicecatalog.service.rest.NameAlreadyInUseException;
 import org.trustedanalytics.servicecatalog.service.rest.NoItemInCatalogException;
 import org.trustedanalytics.utils.errorhandling.ErrorLogger;
@@ -44,6 +47,7 @@ import org.springframework.web.client.HttpStatusCodeException;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -71,6 +75,16 @@ public class RestErrorHandler {
         ErrorLogger.logAndSendErrorResponse(LOGGER, response, INTERNAL_SERVER_ERROR, e);
     }
 
+    @ExceptionHandler(CloudControllerTimeoutException.class)
+    public void cloudControllerTimeout(Exception e, HttpServletResponse response) throws IOException {
+        ErrorLogger.logAndSendErrorResponse(LOGGER, response, GATEWAY_TIMEOUT, e.getMessage(), e);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public void rejectedExecution(Exception e, HttpServletResponse response) throws IOException {
+        ErrorLogger.logAndSendErrorResponse(LOGGER, response, SERVICE_UNAVAILABLE, e);
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public void badRequest(Exception e, HttpServletResponse response) throws IOException {
         ErrorLogger.logAndSendErrorResponse(LOGGER, response, BAD_REQUEST, e);
@@ -18,6 +18,10 @@ package org.trustedanalytics.servicecatalog.service;
 import static org.springframework.context.annotation.ScopedProxyMode.TARGET_CLASS;
 import static org.springframework.web.context.WebApplicationContext.SCOPE_REQUEST;
 
+import org.apache.http.client.HttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,13 +30,13 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.oauth2.client.DefaultOAuth2ClientContext;
 import org.springframework.security.oauth2.client.OAuth2ClientContext;
-import org.springframework.security.oauth2.client.OAuth2RestTemplate;
 import org.springframework.security.oauth2.client.token.DefaultAccessTokenRequest;
 import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsAccessTokenProvider;
 import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsResourceDetails;
 import org.springframework.web.client.RestTemplate;
 
 import org.trustedanalytics.cloud.auth.OAuth2TokenRetriever;
+import org.trustedanalytics.servicecatalog.security.ClientTokenHolder;
 
 @Configuration
 @Profile({"default", "cloud"})
@@ -42,15 +46,16 @@ public class ServiceConfig {
      * This RestTemplate is injected into ccClient bean in {@link org.trustedanalytics.servicecatalog.cf.CcConfig}
      * which is being created with scope per-request and each time alters this RestTamplate by setting
      * authorization token. Although RestTemplate is thread-safe and in general case can be injected as singleton, in
-     * this case it MUST also be created with per-request scope to avoid security risk.
+     * this case it MUST also be created with per-request scope to avoid security risk. Connections are not
+     * bound to the token, so the template uses shared connection pool.
      * @return
      */
     @Bean
     @Scope(value = SCOPE_REQUEST, proxyMode= TARGET_CLASS)
-    protected RestTemplate restTemplateWithOAuth2Token() {
+    protected RestTemplate restTemplateWithOAuth2Token(HttpClient ccHttpClient) {
         /*Default SimpleClientHttpRequestFactory caused random "Unexpected end of file" errors while createing
         requests to Clound Controller*/
-        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory();
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(ccHttpClient);
         return new RestTemplate(factory);
     }
 
@@ -70,13 +75,17 @@ public class ServiceConfig {
         return new ClientCredentialsResourceDetails();
     }
 
+    /**
+     * Token of privileged Cloud Controller client, refreshed in the background before it expires.
+     */
     @Bean
-    @Scope(value = SCOPE_REQUEST, proxyMode = TARGET_CLASS)
-    public OAuth2RestTemplate clientRestTemplate(OAuth2ClientContext clientContext,
-                                                 ClientCredentialsResourceDetails clientCredentials) {
-        OAuth2RestTemplate template = new OAuth2RestTemplate(clientCredentials, clientContext);
+    public ClientTokenHolder clientTokenHolder(ClientCredentialsResourceDetails clientCredentials,
+                                               HttpClient ccHttpClient,
+                                               CounterService counterService,
+                                               GaugeService gaugeService,
+                                               @Value("${oauth.client.token.refreshMargin:60000}") long margin) {
         ClientCredentialsAccessTokenProvider provider = new ClientCredentialsAccessTokenProvider();
-        template.setAccessTokenProvider(provider);
-        return template;
+        provider.setRequestFactory(new HttpComponentsClientHttpRequestFactory(ccHttpClient));
+        return new ClientTokenHolder(clientCredentials, provider, counterService, gaugeService, margin);
     }
 }
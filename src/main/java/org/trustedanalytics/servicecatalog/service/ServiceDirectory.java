@@ -0,0 +1,237 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service;
+
+import org.trustedanalytics.cloud.cc.api.CcExtendedService;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlan;
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.queries.Filter;
+import org.trustedanalytics.cloud.cc.api.queries.FilterOperator;
+import org.trustedanalytics.cloud.cc.api.queries.FilterQuery;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-process directory of service offerings and their plans, indexed by service label and guid.
+ *
+ * Directory is loaded with privileged client and rebuilt in the background, so lookups performed
+ * while handling requests never call Cloud Controller (except for the very first one, when
+ * the directory has not been loaded yet). Besides periodic rebuilds, directory is rebuilt whenever
+ * any instance of the service publishes modification of an offering or of the catalog.
+ *
+ * Directory holds offerings the user may not be allowed to see, so every lookup is filtered
+ * by plan visibility of the calling user ({@link #visibleIn(Set)}); offering without any
+ * visible plan is not returned at all.
+ */
+@Component
+public class ServiceDirectory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceDirectory.class);
+
+    private final CcOperations privilegedClient;
+    private final Executor refreshExecutor;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ServiceDirectory(CcOperations ccPrivilegedClient, InvalidationBus invalidationBus) {
+        this(ccPrivilegedClient, invalidationBus, Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("service-directory-refresh-%d").setDaemon(true).build()));
+    }
+
+    /**
+     * @param ccPrivilegedClient client the directory is loaded with
+     * @param invalidationBus bus announcing modifications of offerings and catalog
+     * @param refreshExecutor executor of rebuilds triggered by modifications
+     */
+    public ServiceDirectory(CcOperations ccPrivilegedClient, InvalidationBus invalidationBus,
+        Executor refreshExecutor) {
+        this.privilegedClient = Objects.requireNonNull(ccPrivilegedClient);
+        this.refreshExecutor = Objects.requireNonNull(refreshExecutor);
+        invalidationBus.subscribe(InvalidationBus.Kind.SERVICE_OFFERING, service -> refreshAsync());
+        invalidationBus.subscribe(InvalidationBus.Kind.CATALOG, id -> refreshAsync());
+    }
+
+    /**
+     * Rebuilds the directory. Previous snapshot is kept when Cloud Controller cannot be reached.
+     */
+    @Scheduled(fixedDelayString = "${services.directory.refresh:60000}")
+    public void refresh() {
+        try {
+            snapshot = load();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to refresh service directory, previous snapshot will be used", e);
+        }
+    }
+
+    /**
+     * Schedules rebuild of the directory, unless one is scheduled already and has not started yet.
+     */
+    public void refreshAsync() {
+        if (refreshPending.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> {
+                refreshPending.set(false);
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * @param orgs organizations the user is a member of
+     * @return tells whether plan is public or visible in any of given organizations
+     */
+    public Predicate<CcExtendedServicePlan> visibleIn(Set<UUID> orgs) {
+        Snapshot current = current();
+        return plan -> Boolean.TRUE.equals(plan.getEntity().getPublicStatus())
+            || !Collections.disjoint(orgs,
+                current.planOrgs.getOrDefault(plan.getMetadata().getGuid(), Collections.emptySet()));
+    }
+
+    /**
+     * @param visible tells whether plan is visible to the user
+     * @return service offerings with at least one visible plan
+     */
+    public Collection<CcExtendedService> getServices(Predicate<CcExtendedServicePlan> visible) {
+        Snapshot current = current();
+        return current.services.values().stream()
+            .filter(service -> hasVisiblePlan(current, service, visible))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param label service label
+     * @param visible tells whether plan is visible to the user
+     * @return service offering with given label, when it has at least one visible plan
+     */
+    public Optional<CcExtendedService> getService(String label, Predicate<CcExtendedServicePlan> visible) {
+        Snapshot current = current();
+        return Optional.ofNullable(current.servicesByLabel.get(label))
+            .filter(service -> hasVisiblePlan(current, service, visible));
+    }
+
+    /**
+     * @param service unique service identifier
+     * @param visible tells whether plan is visible to the user
+     * @return visible plans of given service offering, empty if service is unknown
+     */
+    public Collection<CcExtendedServicePlan> getPlans(UUID service, Predicate<CcExtendedServicePlan> visible) {
+        return plans(current(), service).stream()
+            .filter(visible)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param label service label
+     * @param plan plan name
+     * @param visible tells whether plan is visible to the user
+     * @return plan with given name of the service offering with given label, when the plan is visible
+     */
+    public Optional<CcExtendedServicePlan> getPlan(String label, String plan,
+        Predicate<CcExtendedServicePlan> visible) {
+        Snapshot current = current();
+        return Optional.ofNullable(current.servicesByLabel.get(label))
+            .map(service -> current.plans.get(service.getMetadata().getGuid()))
+            .map(plans -> plans.get(plan))
+            .filter(visible);
+    }
+
+    private static boolean hasVisiblePlan(Snapshot snapshot, CcExtendedService service,
+        Predicate<CcExtendedServicePlan> visible) {
+        return plans(snapshot, service.getMetadata().getGuid()).stream().anyMatch(visible);
+    }
+
+    private static Collection<CcExtendedServicePlan> plans(Snapshot snapshot, UUID service) {
+        return Optional.ofNullable(snapshot.plans.get(service))
+            .map(Map::values)
+            .orElse(Collections.emptyList());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = load();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        LOGGER.debug("Loading service directory");
+        List<CcExtendedService> services = privilegedClient.getExtendedServices()
+            .toList().toBlocking().single();
+
+        Snapshot loaded = new Snapshot();
+        for (CcExtendedService service : services) {
+            UUID guid = service.getMetadata().getGuid();
+            loaded.services.put(guid, service);
+            loaded.servicesByLabel.putIfAbsent(service.getEntity().getLabel(), service);
+
+            Map<String, CcExtendedServicePlan> plans = new LinkedHashMap<>();
+            privilegedClient.getExtendedServicePlans(guid).toList().toBlocking().single()
+                .forEach(plan -> plans.putIfAbsent(plan.getEntity().getName(), plan));
+            loaded.plans.put(guid, Collections.unmodifiableMap(plans));
+
+            plans.values().stream()
+                .filter(plan -> !Boolean.TRUE.equals(plan.getEntity().getPublicStatus()))
+                .map(plan -> plan.getMetadata().getGuid())
+                .forEach(plan -> loaded.planOrgs.put(plan, getVisibility(plan)));
+        }
+        LOGGER.debug("Service directory loaded: {} services", loaded.services.size());
+        return loaded;
+    }
+
+    private Set<UUID> getVisibility(UUID plan) {
+        FilterQuery filter = FilterQuery.from(Filter.SERVICE_PLAN_GUID, FilterOperator.EQ, plan);
+        return ImmutableSet.copyOf(privilegedClient.getExtendedServicePlanVisibility(filter)
+            .map(visibility -> visibility.getEntity().getOrgGuid())
+            .toList().toBlocking().single());
+    }
+
+    private static class Snapshot {
+        private final Map<UUID, CcExtendedService> services = new LinkedHashMap<>();
+        private final Map<String, CcExtendedService> servicesByLabel = new HashMap<>();
+        private final Map<UUID, Map<String, CcExtendedServicePlan>> plans = new HashMap<>();
+        private final Map<UUID, Set<UUID>> planOrgs = new HashMap<>();
+    }
+}
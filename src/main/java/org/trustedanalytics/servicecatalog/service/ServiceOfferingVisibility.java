@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service;
+
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.queries.Filter;
+import org.trustedanalytics.cloud.cc.api.queries.FilterOperator;
+import org.trustedanalytics.cloud.cc.api.queries.FilterQuery;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells whether service offering is shared, i.e. has a public plan or is visible in more than one organization.
+ *
+ * Both checks are privileged Cloud Controller queries, so they are run concurrently and their result is cached
+ * per service for a short time. Cached visibility is forgotten when any instance of the service publishes
+ * modification of the offering.
+ */
+@Component
+public class ServiceOfferingVisibility {
+
+    private final CcOperations privilegedClient;
+    private final Cache<UUID, Boolean> sharedOfferings;
+
+    @Autowired
+    public ServiceOfferingVisibility(CcOperations ccPrivilegedClient,
+                                     @Value("${services.visibility.ttl:30}") long ttlSeconds,
+                                     @Value("${services.visibility.size:10000}") long maxSize,
+                                     InvalidationBus invalidationBus) {
+        this.privilegedClient = Objects.requireNonNull(ccPrivilegedClient);
+        this.sharedOfferings = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+            .build();
+        invalidationBus.subscribe(InvalidationBus.Kind.SERVICE_OFFERING, this::invalidate);
+    }
+
+    /**
+     * @param service unique service identifier
+     * @return true if service offering is public or visible in another organization
+     */
+    public boolean isShared(UUID service) {
+        try {
+            return sharedOfferings.get(service, () -> fetchShared(service));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Forgets cached visibility of service offering, should be called whenever offering or its plans change.
+     * @param service unique service identifier
+     */
+    public void invalidate(UUID service) {
+        sharedOfferings.invalidate(service);
+    }
+
+    private boolean fetchShared(UUID service) {
+        final FilterQuery filter =
+                FilterQuery.from(Filter.SERVICE_PLAN_GUID, FilterOperator.EQ, service);
+
+        Observable<Boolean> isPublic = privilegedClient.getExtendedServicePlans(service)
+                .exists(plan -> plan.getEntity().getPublicStatus())
+                .subscribeOn(Schedulers.io());
+
+        Observable<Boolean> inAnotherOrg = privilegedClient.getExtendedServicePlanVisibility(filter)
+                .distinct(visibility -> visibility.getEntity().getOrgGuid())
+                .count()
+                .map(count -> count > 1)
+                .subscribeOn(Schedulers.io());
+
+        return Observable.zip(isPublic, inAnotherOrg, (publicPlan, anotherOrg) -> publicPlan || anotherOrg)
+                .toBlocking().single();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service;
+
+import org.trustedanalytics.cloud.auth.OAuth2TokenRetriever;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlan;
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcOrg;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Tells which plans from {@link ServiceDirectory} the calling user is allowed to see, i.e. public plans
+ * and plans visible in any organization the user is a member of. Cloud Controller administrator sees all plans.
+ *
+ * Organizations of the user are fetched with user's client and cached per token for a short time, for a bounded
+ * number of tokens. Must be called on the request thread, returned predicate may be used anywhere.
+ */
+@Component
+public class ServicePlanAccess {
+
+    private static final String CC_ADMIN_ROLE = "cloud_controller.admin";
+
+    private final CcOperations ccClient;
+    private final OAuth2TokenRetriever tokenRetriever;
+    private final ServiceDirectory serviceDirectory;
+    private final Cache<String, Set<UUID>> memberships;
+
+    @Autowired
+    public ServicePlanAccess(CcOperations ccClient, OAuth2TokenRetriever tokenRetriever,
+                             ServiceDirectory serviceDirectory,
+                             @Value("${services.membership.ttl:30}") long ttlSeconds,
+                             @Value("${services.membership.size:10000}") long maxSize) {
+        this.ccClient = Objects.requireNonNull(ccClient);
+        this.tokenRetriever = Objects.requireNonNull(tokenRetriever);
+        this.serviceDirectory = Objects.requireNonNull(serviceDirectory);
+        this.memberships = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * @return tells whether plan is visible to the user handling current request
+     */
+    public Predicate<CcExtendedServicePlan> visibleToCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        Collection<? extends GrantedAuthority> authorities = Optional
+            .ofNullable(auth.getAuthorities()).orElse(Collections.emptyList());
+        if (authorities.stream().map(GrantedAuthority::getAuthority).anyMatch(CC_ADMIN_ROLE::equalsIgnoreCase)) {
+            return plan -> true;
+        }
+        return serviceDirectory.visibleIn(getOrgs(tokenRetriever.getAuthToken(auth)));
+    }
+
+    private Set<UUID> getOrgs(String token) {
+        String key = Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+        try {
+            return memberships.get(key, () ->
+                ImmutableSet.copyOf(ccClient.getOrgs().map(CcOrg::getGuid).toList().toBlocking().single()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+}
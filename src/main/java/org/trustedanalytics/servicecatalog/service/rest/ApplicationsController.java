@@ -69,7 +69,7 @@ public class ApplicationsController {
                 applicationsService.getSpaceAppsByService(space, service ->
                     (service.getServicePlan() != null) && label
                         .equals(service.getServicePlan().getService().getLabel())))
-            .orElse(applicationsService.getSpaceApps(space));
+            .orElseGet(() -> applicationsService.getSpaceApps(space));
     }
 
     @ApiOperation(
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service.rest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns Cloud Controller calls into results of asynchronously processed requests, so servlet thread is released
+ * while the calls are in flight. Errors are handled by exception handlers, as if they were thrown by controller.
+ *
+ * Observables are subscribed on a bounded pool of rest.async.threads threads, with up to rest.async.queue
+ * subscriptions waiting for a thread. When both are exhausted, request fails at once with
+ * {@link java.util.concurrent.RejectedExecutionException} (service unavailable) instead of piling up threads.
+ *
+ * Asynchronous execution can be switched off with rest.async property, then observables are subscribed on
+ * servlet thread.
+ */
+@Component
+public class DeferredResults {
+
+    private final Scheduler scheduler;
+
+    @Autowired
+    public DeferredResults(@Value("${rest.async:true}") boolean async,
+                           @Value("${rest.async.threads:64}") int threads,
+                           @Value("${rest.async.queue:256}") int queueSize) {
+        this(async ? Schedulers.from(boundedExecutor(threads, queueSize)) : Schedulers.immediate());
+    }
+
+    public DeferredResults(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Observable has to be created on request thread, as clients it uses are request scoped.
+     *
+     * @param observable observable emitting single item
+     * @param <T> type of the result
+     * @return result set when observable emits its item or fails
+     */
+    public <T> DeferredResult<T> of(Observable<? extends T> observable) {
+        final DeferredResult<T> result = new DeferredResult<>();
+        final Subscription subscription = observable.single()
+            .subscribeOn(scheduler)
+            .subscribe(result::setResult, e -> result.setErrorResult(
+                e instanceof Exception ? e : new IllegalStateException(e)));
+        result.onTimeout(subscription::unsubscribe);
+        return result;
+    }
+
+    private static ThreadPoolExecutor boundedExecutor(int threads, int queueSize) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            new ThreadFactoryBuilder().setNameFormat("rest-async-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -25,6 +25,7 @@ import org.trustedanalytics.cloud.cc.api.CcNewServiceBinding;
 import org.trustedanalytics.cloud.cc.api.CcOperationsApps;
 import org.trustedanalytics.cloud.cc.api.CcServiceBinding;
 import org.trustedanalytics.cloud.cc.api.CcServiceBindingList;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -41,9 +42,11 @@ import java.util.UUID;
     public static final String DELETE_SERVICE_BINDING_URL = "/rest/service_bindings/{binding}";
 
     private final CcOperationsApps ccClient;
+    private final InvalidationBus invalidationBus;
 
-    @Autowired public ServiceBindingsController(CcOperationsApps ccClient) {
+    @Autowired public ServiceBindingsController(CcOperationsApps ccClient, InvalidationBus invalidationBus) {
         this.ccClient = ccClient;
+        this.invalidationBus = invalidationBus;
     }
 
     @ApiOperation(
@@ -65,7 +68,10 @@ import java.util.UUID;
         produces = APPLICATION_JSON_VALUE, consumes = APPLICATION_JSON_VALUE)
     public CcServiceBinding createServiceBinding(@PathVariable UUID app,
         @RequestBody CcNewServiceBinding service) {
-        return ccClient.createServiceBinding(new CcNewServiceBinding(app, service.getServiceInstanceGuid()));
+        CcServiceBinding binding =
+            ccClient.createServiceBinding(new CcNewServiceBinding(app, service.getServiceInstanceGuid()));
+        invalidationBus.publish(InvalidationBus.Kind.APP, app);
+        return binding;
     }
 
     @ApiOperation(
@@ -76,5 +82,6 @@ import java.util.UUID;
     @RequestMapping(value = DELETE_SERVICE_BINDING_URL, method = DELETE)
     public void deleteServiceBinding(@PathVariable UUID binding) {
         ccClient.deleteServiceBinding(binding);
+        invalidationBus.publish(InvalidationBus.Kind.SERVICE_BINDING, binding);
     }
 }
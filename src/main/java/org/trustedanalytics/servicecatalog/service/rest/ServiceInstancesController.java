@@ -16,33 +16,44 @@
 package org.trustedanalytics.servicecatalog.service.rest;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.trustedanalytics.cloud.cc.api.CcApp;
 import org.trustedanalytics.cloud.cc.api.CcExtendedServiceInstance;
 import org.trustedanalytics.cloud.cc.api.CcNewServiceInstance;
 import org.trustedanalytics.cloud.cc.api.CcOperations;
 import org.trustedanalytics.cloud.cc.api.CcSummary;
+import org.trustedanalytics.servicecatalog.cf.SpaceSummaryCache;
 import org.trustedanalytics.servicecatalog.formattranslator.FormatTranslator;
 import org.trustedanalytics.servicecatalog.service.model.Service;
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstance;
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
-import org.trustedanalytics.servicecatalog.service.model.ServiceKey;
 import org.trustedanalytics.servicecatalog.service.model.Summary;
+import org.trustedanalytics.servicecatalog.storage.AsyncServiceInstanceRegistry;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 import org.trustedanalytics.servicecatalog.storage.ServiceInstanceRegistry;
 import rx.Observable;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -65,14 +76,29 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
     private final CcOperations ccClient;
     private final ServiceInstancesControllerHelpers helpers;
     private final ServiceInstanceRegistry serviceInstanceRegistry;
+    private final AsyncServiceInstanceRegistry asyncServiceInstanceRegistry;
+    private final DeferredResults deferredResults;
+    private final InvalidationBus invalidationBus;
+    private final SpaceSummaryCache spaceSummaryCache;
+    private final long summaryTimeout;
 
     @Autowired
     public ServiceInstancesController(CcOperations ccClient,
                                       ServiceInstancesControllerHelpers helpers,
-                                      ServiceInstanceRegistry serviceInstanceRegistry) {
+                                      ServiceInstanceRegistry serviceInstanceRegistry,
+                                      AsyncServiceInstanceRegistry asyncServiceInstanceRegistry,
+                                      DeferredResults deferredResults,
+                                      InvalidationBus invalidationBus,
+                                      SpaceSummaryCache spaceSummaryCache,
+                                      @Value("${cf.summary.timeout:30000}") long summaryTimeout) {
         this.ccClient = ccClient;
         this.helpers = helpers;
         this.serviceInstanceRegistry = serviceInstanceRegistry;
+        this.asyncServiceInstanceRegistry = asyncServiceInstanceRegistry;
+        this.deferredResults = deferredResults;
+        this.invalidationBus = invalidationBus;
+        this.spaceSummaryCache = spaceSummaryCache;
+        this.summaryTimeout = summaryTimeout;
     }
 
     @ApiOperation(
@@ -91,9 +117,9 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
         CcSummary summary = ccClient.getSpaceSummary(space);
 
         Collection<ServiceInstance> serviceInstances = FormatTranslator.getServiceInstancesFromPlainSummary(summary, broker);
+        Map<UUID, ServiceInstanceMetadata> creators = getInstanceCreators(serviceInstances);
         for (ServiceInstance i : serviceInstances) {
-            Optional<ServiceInstanceMetadata> metadata =
-                    Optional.ofNullable(serviceInstanceRegistry.getInstanceCreator(i.getGuid()));
+            Optional<ServiceInstanceMetadata> metadata = Optional.ofNullable(creators.get(i.getGuid()));
             metadata.ifPresent(m -> i.setMetadata(m));
         }
         return serviceInstances;
@@ -111,6 +137,8 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
         produces = APPLICATION_JSON_VALUE) public CcExtendedServiceInstance createServiceInstance(
         @RequestBody CcNewServiceInstance serviceInstance, Authentication authentication) {
 
+        // cached summary may miss instance created recently on other node
+        spaceSummaryCache.evictSpace(serviceInstance.getSpaceGuid());
         CcSummary summary = ccClient.getSpaceSummary(serviceInstance.getSpaceGuid());
         Boolean isNameAlreadyUsed= summary.getServiceInstances()
                 .stream()
@@ -122,6 +150,7 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
         }
 
         CcExtendedServiceInstance createdInstance = ccClient.createServiceInstance(serviceInstance).toBlocking().single();
+        invalidationBus.publish(InvalidationBus.Kind.SPACE, serviceInstance.getSpaceGuid());
         Preconditions.checkState(createdInstance != null, CREATING_INSTANCE_ERROR);
         Preconditions.checkState(createdInstance.getMetadata() != null, CREATING_INSTANCE_ERROR);
         Preconditions.checkState(createdInstance.getMetadata().getGuid() != null, CREATING_INSTANCE_ERROR);
@@ -140,6 +169,7 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
     @RequestMapping(value = DELETE_SERVICE_INSTANCE_URL, method = DELETE)
     public void deleteServiceInstance(@PathVariable UUID instance) {
         ccClient.deleteServiceInstance(instance);
+        invalidationBus.publish(InvalidationBus.Kind.SERVICE_INSTANCE, instance);
         serviceInstanceRegistry.deleteInstanceCreator(instance);
     }
 
@@ -149,9 +179,9 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
     )
     @RequestMapping(value = SERVICE_INSTANCES_SUMMARY_URL, method = GET,
         produces = APPLICATION_JSON_VALUE)
-    public Collection<Service> getServiceKeysSummary(@RequestParam("space") UUID spaceId,
+    public DeferredResult<Collection<Service>> getServiceKeysSummary(@RequestParam("space") UUID spaceId,
         @RequestParam(value = "service_keys", required = false) boolean fetchKeys) {
-        return getSpaceSummary(spaceId, fetchKeys);
+        return deferredResults.of(getSpaceSummary(spaceId, fetchKeys));
     }
 
     @ApiOperation(
@@ -165,25 +195,45 @@ import static org.springframework.web.bind.annotation.RequestMethod.POST;
                     "Handling not filtered request, not implemented yet");
         }
         List<ServiceInstance> instances = helpers.getServiceInstances(spaceId);
-        instances.stream().forEach(i -> i.setMetadata(serviceInstanceRegistry.getInstanceCreator(i.getGuid())));
-        return new Summary(instances, ccClient.getSpaceSummary(spaceId).getApps());
+        // user's client is request scoped, so apps are fetched on this thread while the store is queried
+        CompletableFuture<Map<UUID, ServiceInstanceMetadata>> creators =
+            asyncServiceInstanceRegistry.getInstanceCreators(getGuids(instances));
+        Collection<CcApp> apps = ccClient.getSpaceSummary(spaceId).getApps();
+        Map<UUID, ServiceInstanceMetadata> metadata = await(creators);
+        instances.stream().forEach(i -> i.setMetadata(metadata.get(i.getGuid())));
+        return new Summary(instances, apps);
     }
 
-    private List<Service> getSpaceSummary(UUID spaceId, boolean fetchKeys) {
-        List<ServiceInstance> instances = helpers.getServiceInstances(spaceId);
-
-        if(fetchKeys) {
-            Observable<ServiceKey> serviceKeys = helpers.getServiceKeys();
-            helpers.mergeServiceKeys(instances, serviceKeys);
-        }
-
-        List<Service> brokers = helpers.getServices();
-        helpers.mergeInstances(brokers, instances);
+    private Map<UUID, ServiceInstanceMetadata> getInstanceCreators(Collection<ServiceInstance> instances) {
+        return serviceInstanceRegistry.getInstanceCreators(getGuids(instances));
+    }
 
-        brokers = brokers.stream()
-            .filter(b -> !b.getInstances().isEmpty())
+    private static List<UUID> getGuids(Collection<ServiceInstance> instances) {
+        return instances.stream()
+            .map(ServiceInstance::getGuid)
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
 
-        return brokers;
+    private Observable<List<Service>> getSpaceSummary(UUID spaceId, boolean fetchKeys) {
+        Observable<List<ServiceInstance>> instances = helpers.fetchServiceInstances(spaceId, fetchKeys);
+        Observable<List<Service>> services = helpers.fetchServices();
+
+        return Observable.zip(instances, services, (spaceInstances, brokers) -> {
+                helpers.mergeInstances(brokers, spaceInstances);
+                return brokers.stream()
+                    .filter(b -> !b.getInstances().isEmpty())
+                    .collect(Collectors.toList());
+            })
+            .timeout(summaryTimeout, TimeUnit.MILLISECONDS, Observable.error(new CloudControllerTimeoutException(
+                "Summary of space " + spaceId + " not completed within " + summaryTimeout + " ms")));
     }
 }
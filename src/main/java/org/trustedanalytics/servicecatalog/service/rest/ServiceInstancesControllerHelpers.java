@@ -19,34 +19,61 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.stereotype.Component;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlan;
 import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcServiceKey;
+import org.trustedanalytics.servicecatalog.cf.CcServiceKeysPage;
+import org.trustedanalytics.servicecatalog.cf.RequestScopedClients;
+import org.trustedanalytics.servicecatalog.cf.ServiceKeysOperations;
+import org.trustedanalytics.servicecatalog.service.ServiceDirectory;
+import org.trustedanalytics.servicecatalog.service.ServicePlanAccess;
 import org.trustedanalytics.servicecatalog.service.model.Service;
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstance;
 import org.trustedanalytics.servicecatalog.service.model.ServiceKey;
 import org.trustedanalytics.servicecatalog.security.AccessTokenDetails;
 import rx.Observable;
+import rx.schedulers.Schedulers;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Component
 public class ServiceInstancesControllerHelpers {
 
+    /**
+     * Maximal number of service instances which keys are fetched at the same time.
+     */
+    private static final int SERVICE_KEYS_CONCURRENCY = 8;
+
     private final CcOperations ccClient;
+    private final ServiceKeysOperations ccServiceKeysClient;
+    private final ServiceDirectory serviceDirectory;
+    private final ServicePlanAccess servicePlanAccess;
 
     @Autowired
-    public ServiceInstancesControllerHelpers(CcOperations ccClient) {
+    public ServiceInstancesControllerHelpers(CcOperations ccClient, ServiceKeysOperations ccServiceKeysClient,
+        ServiceDirectory serviceDirectory, ServicePlanAccess servicePlanAccess) {
         this.ccClient = ccClient;
+        this.ccServiceKeysClient = ccServiceKeysClient;
+        this.serviceDirectory = serviceDirectory;
+        this.servicePlanAccess = servicePlanAccess;
     }
 
     public void mergeServiceKeys(Collection<ServiceInstance> instances,
         Observable<ServiceKey> serviceKeys) {
-        Map<UUID, List<ServiceKey>> serviceKeysIndex = createServiceKeysIndex(serviceKeys);
+        Set<UUID> instanceGuids = instances.stream()
+            .map(ServiceInstance::getGuid)
+            .collect(Collectors.toSet());
+        Map<UUID, List<ServiceKey>> serviceKeysIndex = createServiceKeysIndex(
+            serviceKeys.filter(key -> instanceGuids.contains(key.getServiceInstanceGuid())));
 
         instances.stream().forEach(i -> i.setServiceKeys(
             Optional.ofNullable(serviceKeysIndex.get(i.getGuid()))
@@ -62,21 +89,94 @@ public class ServiceInstancesControllerHelpers {
         ));
     }
 
-    public List<Service> getServices() {
-        return ccClient.getExtendedServices()
+    public List<Service> getServices(Predicate<CcExtendedServicePlan> visible) {
+        return serviceDirectory.getServices(visible).stream()
             .map(Service::from)
-            .toList().toBlocking().single();
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads service offerings visible to the user outside of the request thread. Visibility is resolved
+     * on the calling thread, as it needs user's client.
+     *
+     * @return single list of service offerings, emitted on io scheduler
+     */
+    public Observable<List<Service>> fetchServices() {
+        final Predicate<CcExtendedServicePlan> visible = servicePlanAccess.visibleToCurrentUser();
+        return Observable.defer(() -> Observable.just(getServices(visible)))
+            .subscribeOn(Schedulers.io());
     }
 
     public List<ServiceInstance> getServiceInstances(UUID spaceId) {
-        return ccClient.getSpaceSummary(spaceId).getServiceInstances().stream()
+        return getServiceInstances(ccClient, spaceId);
+    }
+
+    /**
+     * Fetches service instances of given space outside of the request thread. When requested, keys of the
+     * instances are fetched right after and merged into them.
+     *
+     * @param spaceId unique space identifier
+     * @param fetchKeys whether service keys should be merged into instances
+     * @return single list of service instances, emitted on io scheduler
+     */
+    public Observable<List<ServiceInstance>> fetchServiceInstances(UUID spaceId, boolean fetchKeys) {
+        final CcOperations client = RequestScopedClients.target(ccClient);
+        final ServiceKeysOperations keysClient = RequestScopedClients.target(ccServiceKeysClient);
+
+        Observable<List<ServiceInstance>> instances =
+            Observable.defer(() -> Observable.just(getServiceInstances(client, spaceId)))
+                .subscribeOn(Schedulers.io());
+        if (!fetchKeys) {
+            return instances;
+        }
+        return instances.flatMap(list -> getServiceKeys(keysClient, getGuids(list))
+            .toList()
+            .map(keys -> {
+                mergeServiceKeys(list, Observable.from(keys));
+                return list;
+            }));
+    }
+
+    /**
+     * Fetches keys of given service instances only, querying Cloud Controller for several instances at a time.
+     *
+     * @param instances unique identifiers of service instances
+     * @return keys of given instances
+     */
+    public Observable<ServiceKey> getServiceKeys(Collection<UUID> instances) {
+        return getServiceKeys(RequestScopedClients.target(ccServiceKeysClient), instances);
+    }
+
+    private static List<ServiceInstance> getServiceInstances(CcOperations client, UUID spaceId) {
+        return client.getSpaceSummary(spaceId).getServiceInstances().stream()
             .map(ServiceInstance::from)
             .filter(si -> si.getServicePlan() != null)
             .collect(Collectors.toList());
     }
 
-    public Observable<ServiceKey> getServiceKeys() {
-        return ccClient.getServiceKeys().map(ServiceKey::from);
+    private static List<UUID> getGuids(Collection<ServiceInstance> instances) {
+        return instances.stream()
+            .map(ServiceInstance::getGuid)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    private static Observable<ServiceKey> getServiceKeys(ServiceKeysOperations client, Collection<UUID> instances) {
+        return Observable.merge(Observable.from(instances)
+                .map(instance -> getServiceKeys(client, instance).subscribeOn(Schedulers.io())),
+            SERVICE_KEYS_CONCURRENCY)
+            .map(ServiceKey::from);
+    }
+
+    private static Observable<CcServiceKey> getServiceKeys(ServiceKeysOperations client, UUID instance) {
+        return Observable.defer(() -> {
+            CcServiceKeysPage page = client.getServiceKeys(instance, 1, ServiceKeysOperations.MAX_PAGE_SIZE);
+            List<CcServiceKey> keys = new ArrayList<>(page.getResources());
+            for (int i = 2; i <= page.getTotalPages(); i++) {
+                keys.addAll(client.getServiceKeys(instance, i, ServiceKeysOperations.MAX_PAGE_SIZE).getResources());
+            }
+            return Observable.from(keys);
+        });
     }
 
     private Map<UUID, List<ServiceInstance>> createInstancesIndex(Collection<ServiceInstance> instances) {
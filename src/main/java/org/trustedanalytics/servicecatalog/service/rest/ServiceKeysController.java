@@ -26,6 +26,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.trustedanalytics.cloud.cc.api.CcNewServiceKey;
 import org.trustedanalytics.cloud.cc.api.CcOperations;
 import org.trustedanalytics.servicecatalog.service.model.ServiceKey;
@@ -39,9 +40,11 @@ import java.util.UUID;
     public static final String SERVICE_KEY_URL = "/rest/service_keys/{guid}";
 
     private final CcOperations ccClient;
+    private final DeferredResults deferredResults;
 
-    @Autowired public ServiceKeysController(CcOperations ccClient) {
+    @Autowired public ServiceKeysController(CcOperations ccClient, DeferredResults deferredResults) {
         this.ccClient = ccClient;
+        this.deferredResults = deferredResults;
     }
 
     @ApiOperation(
@@ -50,9 +53,8 @@ import java.util.UUID;
     )
     @RequestMapping(value = GET_ALL_SERVICE_KEYS_URL, method = GET,
         produces = APPLICATION_JSON_VALUE)
-    public Collection<ServiceKey> getAllServiceKeys() {
-        return ccClient.getServiceKeys().map(ServiceKey::from)
-            .toList().toBlocking().single();
+    public DeferredResult<Collection<ServiceKey>> getAllServiceKeys() {
+        return deferredResults.of(ccClient.getServiceKeys().map(ServiceKey::from).toList());
     }
 
     @ApiOperation(
@@ -61,8 +63,8 @@ import java.util.UUID;
     )
     @RequestMapping(value = GET_ALL_SERVICE_KEYS_URL, method = POST,
         produces = APPLICATION_JSON_VALUE)
-    public ServiceKey createServiceKey(@RequestBody CcNewServiceKey serviceKey) {
-        return ServiceKey.from(ccClient.createServiceKey(serviceKey).toBlocking().first());
+    public DeferredResult<ServiceKey> createServiceKey(@RequestBody CcNewServiceKey serviceKey) {
+        return deferredResults.of(ccClient.createServiceKey(serviceKey).first().map(ServiceKey::from));
     }
 
     @ApiOperation(
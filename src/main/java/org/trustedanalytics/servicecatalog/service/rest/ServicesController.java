@@ -35,6 +35,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import org.trustedanalytics.cloud.auth.OAuth2TokenRetriever;
 import org.trustedanalytics.cloud.cc.api.CcExtendedService;
@@ -44,21 +45,29 @@ import org.trustedanalytics.cloud.cc.api.CcOrg;
 import org.trustedanalytics.cloud.cc.api.queries.Filter;
 import org.trustedanalytics.cloud.cc.api.queries.FilterOperator;
 import org.trustedanalytics.cloud.cc.api.queries.FilterQuery;
-import org.trustedanalytics.servicecatalog.service.CatalogOperations;
-import org.trustedanalytics.servicecatalog.service.model.ServiceBroker;
+import org.trustedanalytics.servicecatalog.service.CachingCatalogOperations;
+import org.trustedanalytics.servicecatalog.service.CatalogSnapshot;
+import org.trustedanalytics.servicecatalog.service.ServiceDirectory;
+import org.trustedanalytics.servicecatalog.service.ServiceOfferingVisibility;
+import org.trustedanalytics.servicecatalog.service.ServicePlanAccess;
 import org.trustedanalytics.servicecatalog.service.model.ServiceDetails;
 import org.trustedanalytics.servicecatalog.service.model.ServicePlanResponse;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationRequest;
 import rx.Observable;
+import rx.schedulers.Schedulers;
 
 
 @RestController
@@ -74,18 +83,32 @@ public class ServicesController {
 
     private final CcOperations ccClient;
     private final CcOperations privilegedClient;
-    private final CatalogOperations catalogClient;
+    private final CachingCatalogOperations catalogClient;
+    private final ServiceDirectory serviceDirectory;
+    private final ServicePlanAccess servicePlanAccess;
+    private final ServiceOfferingVisibility offeringVisibility;
+    private final DeferredResults deferredResults;
+    private final InvalidationBus invalidationBus;
 
     private static final String ADMIN_ROLE = "console.admin";
+    private static final int CLONED_APPLICATIONS_CONCURRENCY = 8;
 
     @Autowired
     private OAuth2TokenRetriever tokenRetriever;
 
     @Autowired
-    public ServicesController(CcOperations ccClient, CcOperations ccPrivilegedClient, CatalogOperations catalogClient) {
+    public ServicesController(CcOperations ccClient, CcOperations ccPrivilegedClient,
+                              CachingCatalogOperations catalogClient, ServiceDirectory serviceDirectory,
+                              ServicePlanAccess servicePlanAccess, ServiceOfferingVisibility offeringVisibility, DeferredResults deferredResults,
+                              InvalidationBus invalidationBus) {
         this.ccClient = ccClient;
         this.privilegedClient = ccPrivilegedClient;
         this.catalogClient = catalogClient;
+        this.serviceDirectory = serviceDirectory;
+        this.servicePlanAccess = servicePlanAccess;
+        this.offeringVisibility = offeringVisibility;
+        this.deferredResults = deferredResults;
+        this.invalidationBus = invalidationBus;
     }
 
     @ApiOperation(
@@ -97,19 +120,8 @@ public class ServicesController {
     public ServicePlanResponse getPlanGuid(@RequestParam(required = true) String label, @RequestParam(required = true) String plan) {
 
         ServicePlanResponse servicePlanResponse = new ServicePlanResponse();
-        CcExtendedService service = ccClient.getExtendedServices().
-            firstOrDefault(null, ccExtendedService -> ccExtendedService.getEntity().getLabel().equals(label)).
-            toBlocking().single();
-        if (service == null)
-            return servicePlanResponse;
-
-        CcExtendedServicePlan servicePlan = ccClient.getExtendedServicePlans(service.getMetadata().getGuid()).
-                firstOrDefault(null, extendedServicePlans -> extendedServicePlans.getEntity().getName().equals(plan)).
-                toBlocking().single();
-        if (servicePlan == null)
-            return servicePlanResponse;
-
-        servicePlanResponse.setGuid(servicePlan.getMetadata().getGuid());
+        serviceDirectory.getPlan(label, plan, servicePlanAccess.visibleToCurrentUser())
+            .ifPresent(servicePlan -> servicePlanResponse.setGuid(servicePlan.getMetadata().getGuid()));
         return servicePlanResponse;
     }
 
@@ -120,19 +132,10 @@ public class ServicesController {
     )
     @RequestMapping(value = GET_SERVICE_PLANS_URL, method = GET, produces = APPLICATION_JSON_VALUE)
     public Collection<CcExtendedServicePlan> getServicePlans(@PathVariable String label) {
-        return ccClient.getExtendedServices()
-            .filter(service -> label.equals(service.getEntity().getLabel()))
-            .firstOrDefault(null)
-            .flatMap(service -> {
-                if (service != null) {
-                    return ccClient.getExtendedServicePlans(service.getMetadata().getGuid());
-                } else {
-                    return Observable.empty();
-                }
-            })
-            .toList()
-            .toBlocking()
-            .single();
+        Predicate<CcExtendedServicePlan> visible = servicePlanAccess.visibleToCurrentUser();
+        return serviceDirectory.getService(label, visible)
+            .map(service -> serviceDirectory.getPlans(service.getMetadata().getGuid(), visible))
+            .orElse(Collections.emptyList());
     }
 
     @ApiOperation(
@@ -140,12 +143,11 @@ public class ServicesController {
             notes = "Privilege level: Consumer of this endpoint must be a member of specified space"
     )
     @RequestMapping(value = GET_ALL_SERVICES_URL, method = GET, produces = APPLICATION_JSON_VALUE)
-    public Collection<CcExtendedService> getServices(@RequestParam(required = false) UUID space) {
+    public DeferredResult<Collection<CcExtendedService>> getServices(@RequestParam(required = false) UUID space) {
         if(space == null) {
             throw new UnsupportedOperationException("Handling not filtered request, not implemented yet");
         }
-        return ccClient.getServices(space)
-            .toList().toBlocking().single();
+        return deferredResults.of(ccClient.getServices(space).toList());
     }
 
     @ApiOperation(
@@ -159,9 +161,8 @@ public class ServicesController {
         CcExtendedService ccService = ccClient.getService(service)
                 .toBlocking().single();
 
-        return catalogClient.getCatalog().getServices().stream()
-                .filter(item -> item.getId().toString().equals(ccService.getEntity().getUniqueId()))
-                .findFirst().map(item -> new ServiceDetails(ccService, canDeleteOffering(ccService.getMetadata().getGuid())))
+        return catalogClient.getSnapshot().getService(ccService.getEntity().getUniqueId())
+                .map(item -> new ServiceDetails(ccService, canDeleteOffering(ccService.getMetadata().getGuid())))
                 .orElse(new ServiceDetails(ccService, false));
     }
 
@@ -185,6 +186,7 @@ public class ServicesController {
         }
 
         catalogClient.register(data);
+        invalidationBus.publish(InvalidationBus.Kind.CATALOG, null);
 
         Observable<CcExtendedService> extendedService = privilegedClient.getExtendedServices().
                 firstOrDefault(null, service -> data.getName().equals(service.getEntity().getLabel()));
@@ -201,7 +203,11 @@ public class ServicesController {
                     privilegedClient.setExtendedServicePlanVisibility(plan.getMetadata().getGuid(),org.getGuid()))
             .toList().toBlocking().single();
 
-        return extendedService.toBlocking().single();
+        CcExtendedService registered = extendedService.toBlocking().single();
+        if (registered != null) {
+            invalidationBus.publish(InvalidationBus.Kind.SERVICE_OFFERING, registered.getMetadata().getGuid());
+        }
+        return registered;
     }
 
 
@@ -213,8 +219,8 @@ public class ServicesController {
     @RequestMapping(value = CLONED_APPLICATION, method = DELETE)
     public void deregisterApplication(@PathVariable UUID service) {
 
-        ServiceBroker catalogResult = catalogClient.getCatalog();
-        if (catalogResult.getServices().isEmpty() || catalogResult.getServices().size() < 2) {
+        CatalogSnapshot catalog = catalogClient.getSnapshot();
+        if (catalog.getServices().isEmpty() || catalog.getServices().size() < 2) {
             throw new NoItemInCatalogException("Catalog is empty or have only 1 item left.");
         }
 
@@ -225,42 +231,34 @@ public class ServicesController {
             throw new AccessDeniedException("User not authorize to delete this service");
         }
 
-        for (ServiceRegistrationRequest item : catalogResult.getServices()) {
-            if(item.getId().toString().equals(ccService.getEntity().getUniqueId())){
-                catalogClient.deregister(ccService.getEntity().getUniqueId());
-            }
-        }
-
+        catalog.getService(ccService.getEntity().getUniqueId()).ifPresent(item -> {
+            catalogClient.deregister(ccService.getEntity().getUniqueId());
+            invalidationBus.publish(InvalidationBus.Kind.CATALOG, null);
+            invalidationBus.publish(InvalidationBus.Kind.SERVICE_OFFERING, ccService.getMetadata().getGuid());
+        });
     }
 
     @RequestMapping(value = CLONED_APPLICATION, method = GET)
-    public Collection<CcExtendedService> getClonedApplications(@PathVariable UUID service) {
-        ServiceBroker catalogResult = catalogClient.getCatalog();
-        Collection<CcExtendedService> result = new LinkedList<>();
-
-        for (ServiceRegistrationRequest item : catalogResult.getServices()) {
-            if(item.getApp().getMetadata().getGuid().equals(service)){
-                final FilterQuery filter =
-                        FilterQuery.from(Filter.LABEL, FilterOperator.EQ, item.getName());
-                result.add(ccClient.getExtendedServices(filter).toBlocking().single());
-            }
-        }
-
-        return result;
+    public DeferredResult<Collection<CcExtendedService>> getClonedApplications(@PathVariable UUID service) {
+        List<ServiceRegistrationRequest> clones = catalogClient.getSnapshot().getServicesByApp(service);
+
+        // queries are created on request thread, as ccClient is request scoped, and executed concurrently
+        List<Observable<CcExtendedService>> queries = clones.stream()
+                .map(item -> FilterQuery.from(Filter.LABEL, FilterOperator.EQ, item.getName()))
+                .map(filter -> ccClient.getExtendedServices(filter).single().subscribeOn(Schedulers.io()))
+                .collect(Collectors.toList());
+
+        List<String> labels = clones.stream()
+                .map(ServiceRegistrationRequest::getName)
+                .collect(Collectors.toList());
+
+        return deferredResults.of(Observable.merge(Observable.from(queries), CLONED_APPLICATIONS_CONCURRENCY)
+                .toSortedList((a, b) -> Integer.compare(
+                        labels.indexOf(a.getEntity().getLabel()), labels.indexOf(b.getEntity().getLabel()))));
     }
 
     public boolean canDeleteOffering(UUID serviceGuid) {
-        final FilterQuery filter =
-                FilterQuery.from(Filter.SERVICE_PLAN_GUID, FilterOperator.EQ, serviceGuid);
-        boolean isPublic = privilegedClient.getExtendedServicePlans(serviceGuid)
-                .exists(plan -> plan.getEntity().getPublicStatus())
-                .toBlocking().single();
-
-        boolean inAnotherOrg = privilegedClient.getExtendedServicePlanVisibility(filter)
-                .distinct(visibility -> visibility.getEntity().getOrgGuid())
-                        .count().toBlocking().single() > 1;
-
-        if (!isPublic && !inAnotherOrg) {
+        if (!offeringVisibility.isShared(serviceGuid)) {
             return true;
         }
 
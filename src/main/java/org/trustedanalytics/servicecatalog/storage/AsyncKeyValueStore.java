@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link KeyValueStore}. Returned futures complete outside of the calling thread,
+ * so the caller can do other work (e.g. call Cloud Controller) while the store is queried.
+ */
+public interface AsyncKeyValueStore<T> {
+    CompletableFuture<Boolean> hasKey(String key);
+
+    CompletableFuture<T> get(String key);
+
+    CompletableFuture<Map<String, T>> get(Collection<String> keys);
+
+    CompletableFuture<Void> remove(String key);
+
+    CompletableFuture<Void> put(String key, T value);
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of {@link ServiceInstanceRegistry}.
+ */
+public class AsyncServiceInstanceRegistry {
+
+    private final AsyncKeyValueStore<ServiceInstanceMetadata> serviceInstancesMetadataStore;
+
+    public AsyncServiceInstanceRegistry(AsyncKeyValueStore<ServiceInstanceMetadata> store) {
+        this.serviceInstancesMetadataStore = Objects.requireNonNull(store);
+    }
+
+    public CompletableFuture<Void> addInstanceCreator(UUID instanceUUID, ServiceInstanceMetadata metadata) {
+        return serviceInstancesMetadataStore.put(instanceUUID.toString(), metadata);
+    }
+
+    public CompletableFuture<Void> deleteInstanceCreator(UUID instanceUUID) {
+        return serviceInstancesMetadataStore.remove(instanceUUID.toString());
+    }
+
+    public CompletableFuture<ServiceInstanceMetadata> getInstanceCreator(UUID instanceUUID) {
+        return serviceInstancesMetadataStore.get(instanceUUID.toString());
+    }
+
+    public CompletableFuture<Map<UUID, ServiceInstanceMetadata>> getInstanceCreators(
+        Collection<UUID> instanceUUIDs) {
+        Set<String> keys = instanceUUIDs.stream()
+            .map(UUID::toString)
+            .collect(Collectors.toSet());
+        return serviceInstancesMetadataStore.get(keys).thenApply(creators -> creators.entrySet().stream()
+            .collect(Collectors.toMap(entry -> UUID.fromString(entry.getKey()), Map.Entry::getValue)));
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Named locks shared by all instances of the service, so periodic jobs run on one node at a time. Lock is a Redis
+ * key set only if absent and expiring after given time, so lock of a node which died is released eventually;
+ * holder which needs more time renews it.
+ *
+ * Lock created without Redis is always granted, which is enough for single node deployments.
+ */
+public class ClusterLock {
+
+    private static final String PREFIX = "service-catalog-lock:";
+
+    private static final RedisScript<Long> LOCK_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 else return 0 end",
+        Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+            + "else return 0 end",
+        Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final RedisOperations<String, String> redisTemplate;
+    private final String node = UUID.randomUUID().toString();
+
+    public ClusterLock(RedisOperations<String, String> redisTemplate) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+    }
+
+    /**
+     * @return lock which is always granted
+     */
+    public static ClusterLock local() {
+        return new ClusterLock();
+    }
+
+    private ClusterLock() {
+        this.redisTemplate = null;
+    }
+
+    /**
+     * @param name name of the lock
+     * @param ttlMillis time after which lock is released, unless renewed
+     * @return true if this node holds the lock now
+     */
+    public boolean tryLock(String name, long ttlMillis) {
+        return redisTemplate == null || execute(LOCK_SCRIPT, name, ttlMillis);
+    }
+
+    /**
+     * @param name name of the lock
+     * @param ttlMillis time after which lock is released, counted from now
+     * @return true if this node still holds the lock
+     */
+    public boolean renew(String name, long ttlMillis) {
+        return redisTemplate == null || execute(RENEW_SCRIPT, name, ttlMillis);
+    }
+
+    /**
+     * Releases the lock, if it is held by this node.
+     *
+     * @param name name of the lock
+     */
+    public void unlock(String name) {
+        if (redisTemplate != null) {
+            redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(PREFIX + name), node);
+        }
+    }
+
+    private boolean execute(RedisScript<Long> script, String name, long ttlMillis) {
+        Long result = redisTemplate.execute(script, Collections.singletonList(PREFIX + name), node,
+            String.valueOf(ttlMillis));
+        return result != null && result == 1;
+    }
+}
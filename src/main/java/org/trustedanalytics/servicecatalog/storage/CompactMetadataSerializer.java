@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Binary serializer of {@link ServiceInstanceMetadata}. Creator guid is stored as 16 bytes, creator name as
+ * length-prefixed UTF-8; values are prefixed with format version.
+ *
+ * Values written as JSON (which always start with '{') are still read, so the serializer can replace JSON one
+ * without migrating stored data. Entries are rewritten in binary format on next modification.
+ */
+public class CompactMetadataSerializer implements RedisSerializer<ServiceInstanceMetadata> {
+
+    private static final byte VERSION_1 = 1;
+    private static final byte JSON_OBJECT = '{';
+
+    private static final int CREATOR_UUID_BINARY = 1;
+    private static final int CREATOR_UUID_TEXT = 1 << 1;
+    private static final int CREATOR_NAME = 1 << 2;
+
+    private final RedisSerializer<ServiceInstanceMetadata> jsonSerializer =
+        new JacksonJsonRedisSerializer<>(ServiceInstanceMetadata.class);
+
+    @Override
+    public byte[] serialize(ServiceInstanceMetadata metadata) {
+        if (metadata == null) {
+            return new byte[0];
+        }
+
+        String creatorUuid = metadata.getCreatorUUID();
+        UUID binaryUuid = asUuid(creatorUuid);
+        String creatorName = metadata.getCreatorName();
+        int flags = (binaryUuid != null ? CREATOR_UUID_BINARY : 0)
+            | (binaryUuid == null && creatorUuid != null ? CREATOR_UUID_TEXT : 0)
+            | (creatorName != null ? CREATOR_NAME : 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION_1);
+            out.writeByte(flags);
+            if (binaryUuid != null) {
+                out.writeLong(binaryUuid.getMostSignificantBits());
+                out.writeLong(binaryUuid.getLeastSignificantBits());
+            } else if (creatorUuid != null) {
+                out.writeUTF(creatorUuid);
+            }
+            if (creatorName != null) {
+                out.writeUTF(creatorName);
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Could not write instance metadata", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public ServiceInstanceMetadata deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == JSON_OBJECT) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes[0] != VERSION_1) {
+            throw new SerializationException("Unknown format of instance metadata: " + bytes[0]);
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+            int flags = in.readUnsignedByte();
+            ServiceInstanceMetadata metadata = new ServiceInstanceMetadata();
+            if ((flags & CREATOR_UUID_BINARY) != 0) {
+                metadata.setCreatorUUID(new UUID(in.readLong(), in.readLong()).toString());
+            } else if ((flags & CREATOR_UUID_TEXT) != 0) {
+                metadata.setCreatorUUID(in.readUTF());
+            }
+            if ((flags & CREATOR_NAME) != 0) {
+                metadata.setCreatorName(in.readUTF());
+            }
+            return metadata;
+        } catch (IOException e) {
+            throw new SerializationException("Could not read instance metadata", e);
+        }
+    }
+
+    /**
+     * @return uuid, when value is canonical text form of uuid, so it survives binary round trip unchanged
+     */
+    private static UUID asUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
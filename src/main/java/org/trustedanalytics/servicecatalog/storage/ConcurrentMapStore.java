@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * On-heap store for single node deployments and local runs. Content is lost on restart.
+ *
+ * Values are stored by reference, so they must not be modified after they are put.
+ */
+public class ConcurrentMapStore<T> implements KeyValueStore<T> {
+
+    private final ConcurrentMap<String, T> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean hasKey(String key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public T get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public Map<String, T> get(Collection<String> keys) {
+        Map<String, T> result = new HashMap<>();
+        for (String key : keys) {
+            T value = entries.get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void put(String key, T value) {
+        entries.put(key, Objects.requireNonNull(value));
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, T value) {
+        return entries.putIfAbsent(key, Objects.requireNonNull(value)) == null;
+    }
+
+    @Override
+    public void putAll(Map<String, T> values) {
+        entries.putAll(values);
+    }
+
+    @Override
+    public Set<String> keys() {
+        return new HashSet<>(entries.keySet());
+    }
+
+    @Override
+    public Map<String, T> entries() {
+        return new HashMap<>(entries);
+    }
+
+    @Override
+    public Stream<Map.Entry<String, T>> scan(int batchSize) {
+        // iterators of concurrent map are weakly consistent, no need to copy
+        return entries.entrySet().stream()
+            .<Map.Entry<String, T>>map(entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+    }
+}
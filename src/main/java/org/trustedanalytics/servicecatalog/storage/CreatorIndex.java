@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Store of instance metadata which can be queried by creator, without walking all entries.
+ */
+public interface CreatorIndex {
+
+    /**
+     * @param creatorGuid unique identifier of the user
+     * @param batchSize number of entries fetched from the store at once
+     * @return lazy stream of metadata of instances created by given user, by instance guid
+     */
+    Stream<Map.Entry<String, ServiceInstanceMetadata>> scanByCreator(String creatorGuid, int batchSize);
+}
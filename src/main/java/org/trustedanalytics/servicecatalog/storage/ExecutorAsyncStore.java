@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs operations of a {@link KeyValueStore} on a dedicated executor. Redis client used by the store is
+ * blocking, so the executor should be bounded and not shared with CPU bound work.
+ */
+public class ExecutorAsyncStore<T> implements AsyncKeyValueStore<T> {
+
+    private final KeyValueStore<T> delegate;
+    private final Executor executor;
+
+    public ExecutorAsyncStore(KeyValueStore<T> delegate, Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hasKey(String key) {
+        return CompletableFuture.supplyAsync(() -> delegate.hasKey(key), executor);
+    }
+
+    @Override
+    public CompletableFuture<T> get(String key) {
+        return CompletableFuture.supplyAsync(() -> delegate.get(key), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, T>> get(Collection<String> keys) {
+        return CompletableFuture.supplyAsync(() -> delegate.get(keys), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String key) {
+        return CompletableFuture.runAsync(() -> delegate.remove(key), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, T value) {
+        return CompletableFuture.runAsync(() -> delegate.put(key, value), executor);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+/**
+ * Metadata of a service instance, as stored by {@link JpaMetadataStore}.
+ *
+ * Instance guid is assigned by Cloud Controller, so the entity tells Spring Data whether it is new itself;
+ * otherwise every insert would be preceded by a select.
+ */
+@Entity
+@Table(name = "service_instance_metadata",
+    indexes = @Index(name = "service_instance_metadata_creator_idx", columnList = "creator_guid,instance_guid"))
+public class InstanceMetadataEntity implements Persistable<String> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "instance_guid", length = 36)
+    private String instanceGuid;
+
+    @Column(name = "creator_guid", length = 36)
+    private String creatorGuid;
+
+    @Column(name = "creator_name")
+    private String creatorName;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected InstanceMetadataEntity() {
+    }
+
+    public InstanceMetadataEntity(String instanceGuid, ServiceInstanceMetadata metadata) {
+        this.instanceGuid = instanceGuid;
+        setMetadata(metadata);
+    }
+
+    @Override
+    public String getId() {
+        return instanceGuid;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getCreatorGuid() {
+        return creatorGuid;
+    }
+
+    public ServiceInstanceMetadata getMetadata() {
+        ServiceInstanceMetadata metadata = new ServiceInstanceMetadata();
+        metadata.setCreatorUUID(creatorGuid);
+        metadata.setCreatorName(creatorName);
+        return metadata;
+    }
+
+    public final void setMetadata(ServiceInstanceMetadata metadata) {
+        this.creatorGuid = metadata.getCreatorUUID();
+        this.creatorName = metadata.getCreatorName();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+}
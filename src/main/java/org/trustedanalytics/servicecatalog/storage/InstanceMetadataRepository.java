@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface InstanceMetadataRepository extends JpaRepository<InstanceMetadataEntity, String> {
+
+    /**
+     * Keyset pagination, which unlike offset pagination does not slow down with the page number.
+     */
+    List<InstanceMetadataEntity> findByInstanceGuidGreaterThanOrderByInstanceGuidAsc(String instanceGuid,
+        Pageable page);
+
+    /**
+     * Keyset pagination of instances created by given user, served by creator index.
+     */
+    List<InstanceMetadataEntity> findByCreatorGuidAndInstanceGuidGreaterThanOrderByInstanceGuidAsc(
+        String creatorGuid, String instanceGuid, Pageable page);
+
+    @Query("select e.instanceGuid from InstanceMetadataEntity e")
+    List<String> findAllInstanceGuids();
+
+    @Modifying
+    @Query("delete from InstanceMetadataEntity e where e.instanceGuid in :instanceGuids")
+    int deleteByInstanceGuids(@Param("instanceGuids") Collection<String> instanceGuids);
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Spreads cache invalidations among all instances of the service. Invalidation is applied to local caches right
+ * away and then published on Redis channel, so other instances apply it as soon as they receive the message.
+ *
+ * Messages are fire-and-forget, instance which misses one keeps serving stale entries until they expire.
+ * Bus created without Redis only invalidates local caches, which is enough for single node deployments.
+ */
+public class InvalidationBus implements MessageListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private static final String SEPARATOR = ":";
+
+    public enum Kind {
+        SPACE, SERVICE_INSTANCE, SERVICE_INSTANCE_METADATA, SERVICE_BINDING, APP, SERVICE_OFFERING, CATALOG
+    }
+
+    private final RedisOperations<String, String> redisTemplate;
+    private final String channel;
+    private final String node = UUID.randomUUID().toString();
+    private final Map<Kind, List<Consumer<UUID>>> handlers = new EnumMap<>(Kind.class);
+
+    {
+        for (Kind kind : Kind.values()) {
+            handlers.put(kind, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    public InvalidationBus(RedisOperations<String, String> redisTemplate, String channel) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        this.channel = Objects.requireNonNull(channel);
+    }
+
+    /**
+     * @return bus which invalidates local caches only
+     */
+    public static InvalidationBus local() {
+        return new InvalidationBus();
+    }
+
+    private InvalidationBus() {
+        this.redisTemplate = null;
+        this.channel = null;
+    }
+
+    /**
+     * @param kind kind of modified entity
+     * @param handler invalidation of local cache, called with identifier of modified entity (may be null)
+     */
+    public void subscribe(Kind kind, Consumer<UUID> handler) {
+        handlers.get(kind).add(Objects.requireNonNull(handler));
+    }
+
+    /**
+     * Invalidates local caches and publishes invalidation to other instances.
+     *
+     * @param kind kind of modified entity
+     * @param id unique identifier of modified entity, null when not relevant
+     */
+    public void publish(Kind kind, UUID id) {
+        dispatch(kind, id);
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, encode(kind, id));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to publish invalidation of {} {}", kind, id, e);
+        }
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        if (parts.length != 3) {
+            LOGGER.warn("Malformed invalidation message ignored");
+            return;
+        }
+        if (node.equals(parts[0])) {
+            return;
+        }
+
+        Kind kind;
+        UUID id;
+        try {
+            kind = Kind.valueOf(parts[1]);
+            id = parts[2].isEmpty() ? null : UUID.fromString(parts[2]);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Unknown invalidation {} ignored", parts[1] + SEPARATOR + parts[2]);
+            return;
+        }
+        dispatch(kind, id);
+    }
+
+    private void dispatch(Kind kind, UUID id) {
+        LOGGER.debug("Invalidating {} {}", kind, id);
+        for (Consumer<UUID> handler : handlers.get(kind)) {
+            try {
+                handler.accept(id);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Invalidation of {} {} failed", kind, id, e);
+            }
+        }
+    }
+
+    private String encode(Kind kind, UUID id) {
+        return node + SEPARATOR + kind.name() + SEPARATOR + (id == null ? "" : id.toString());
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterables;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Store keeping instance metadata in relational database, in service_instance_metadata table created by
+ * schema.sql. Unlike Redis hash, it can also be queried by creator ({@link #scanByCreator(String, int)}).
+ *
+ * Many keys are fetched and removed with IN clauses of at most {@code batchSize} keys; new entries are inserted
+ * with JDBC batches, as configured by hibernate.jdbc.batch_size.
+ */
+public class JpaMetadataStore implements KeyValueStore<ServiceInstanceMetadata>, CreatorIndex {
+
+    private final InstanceMetadataRepository repository;
+    private final TransactionOperations transactions;
+    private final int batchSize;
+
+    /**
+     * @param repository repository of metadata entities
+     * @param transactions transactions modifications of many entities are run in
+     * @param batchSize maximal number of keys in single IN clause
+     */
+    public JpaMetadataStore(InstanceMetadataRepository repository, TransactionOperations transactions,
+        int batchSize) {
+        this.repository = Objects.requireNonNull(repository);
+        this.transactions = Objects.requireNonNull(transactions);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return repository.exists(key);
+    }
+
+    @Override
+    public ServiceInstanceMetadata get(String key) {
+        InstanceMetadataEntity entity = repository.findOne(key);
+        return entity == null ? null : entity.getMetadata();
+    }
+
+    @Override
+    public Map<String, ServiceInstanceMetadata> get(Collection<String> keys) {
+        Map<String, ServiceInstanceMetadata> result = new HashMap<>();
+        for (List<String> batch : Iterables.partition(new HashSet<>(keys), batchSize)) {
+            repository.findAll(batch).forEach(entity -> result.put(entity.getId(), entity.getMetadata()));
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(String key) {
+        removeAll(Collections.singletonList(key));
+    }
+
+    @Override
+    public void put(String key, ServiceInstanceMetadata value) {
+        putAll(Collections.singletonMap(key, value));
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, ServiceInstanceMetadata value) {
+        try {
+            return transactions.execute(status -> {
+                if (repository.exists(key)) {
+                    return false;
+                }
+                repository.saveAndFlush(new InstanceMetadataEntity(key, value));
+                return true;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // inserted concurrently by other instance of the service
+            return false;
+        }
+    }
+
+    @Override
+    public void putAll(Map<String, ServiceInstanceMetadata> values) {
+        for (List<String> batch : Iterables.partition(values.keySet(), batchSize)) {
+            transactions.execute(status -> {
+                List<InstanceMetadataEntity> entities = new ArrayList<>(batch.size());
+                Set<String> existing = new HashSet<>();
+                // existing entities are managed, so they are updated on commit
+                for (InstanceMetadataEntity entity : repository.findAll(batch)) {
+                    entity.setMetadata(values.get(entity.getId()));
+                    existing.add(entity.getId());
+                }
+                batch.stream()
+                    .filter(key -> !existing.contains(key))
+                    .forEach(key -> entities.add(new InstanceMetadataEntity(key, values.get(key))));
+                return repository.save(entities);
+            });
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        for (List<String> batch : Iterables.partition(keys, batchSize)) {
+            transactions.execute(status -> repository.deleteByInstanceGuids(batch));
+        }
+    }
+
+    @Override
+    public Set<String> keys() {
+        return new HashSet<>(repository.findAllInstanceGuids());
+    }
+
+    @Override
+    public Map<String, ServiceInstanceMetadata> entries() {
+        Map<String, ServiceInstanceMetadata> result = new HashMap<>();
+        repository.findAll().forEach(entity -> result.put(entity.getId(), entity.getMetadata()));
+        return result;
+    }
+
+    @Override
+    public Stream<Map.Entry<String, ServiceInstanceMetadata>> scan(int batchSize) {
+        return scanPages(last -> repository.findByInstanceGuidGreaterThanOrderByInstanceGuidAsc(
+            last, new PageRequest(0, batchSize)));
+    }
+
+    @Override
+    public Stream<Map.Entry<String, ServiceInstanceMetadata>> scanByCreator(String creatorGuid, int batchSize) {
+        return scanPages(last -> repository.findByCreatorGuidAndInstanceGuidGreaterThanOrderByInstanceGuidAsc(
+            creatorGuid, last, new PageRequest(0, batchSize)));
+    }
+
+    /**
+     * @param nextPage fetches page of entities following given instance guid
+     */
+    private static Stream<Map.Entry<String, ServiceInstanceMetadata>> scanPages(
+        Function<String, List<InstanceMetadataEntity>> nextPage) {
+        Iterator<List<InstanceMetadataEntity>> pages = new AbstractIterator<List<InstanceMetadataEntity>>() {
+            private String last = "";
+
+            @Override
+            protected List<InstanceMetadataEntity> computeNext() {
+                List<InstanceMetadataEntity> page = nextPage.apply(last);
+                if (page.isEmpty()) {
+                    return endOfData();
+                }
+                last = page.get(page.size() - 1).getId();
+                return page;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED), false)
+            .flatMap(List::stream)
+            .<Map.Entry<String, ServiceInstanceMetadata>>map(entity ->
+                new AbstractMap.SimpleImmutableEntry<>(entity.getId(), entity.getMetadata()));
+    }
+}
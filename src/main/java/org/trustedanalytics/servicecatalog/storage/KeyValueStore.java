@@ -15,21 +15,62 @@
  */
 package org.trustedanalytics.servicecatalog.storage;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public interface KeyValueStore<T> {
     boolean hasKey(String key);
 
     T get(String key);
 
+    Map<String, T> get(Collection<String> keys);
+
     void remove(String key);
 
     void put(String key, T value);
 
     boolean putIfAbsent(String key, T value);
 
+    /**
+     * Stores many values at once, implementations write them with as few round trips as possible.
+     *
+     * @param values values by key
+     */
+    default void putAll(Map<String, T> values) {
+        values.forEach(this::put);
+    }
+
+    /**
+     * Removes many keys at once, implementations remove them with as few round trips as possible.
+     *
+     * @param keys keys to be removed
+     */
+    default void removeAll(Collection<String> keys) {
+        keys.forEach(this::remove);
+    }
+
     Set<String> keys();
 
     Map<String, T> entries();
+
+    /**
+     * Iterates over all entries, fetching them from the store in batches, so the whole store is never held in
+     * memory. Entry modified during iteration may be returned more than once, or not at all. Stream has to be
+     * closed after use.
+     *
+     * @param batchSize number of entries fetched at once (a hint)
+     * @return lazy stream of entries
+     */
+    Stream<Map.Entry<String, T>> scan(int batchSize);
+
+    /**
+     * @param batchSize number of entries fetched at once (a hint)
+     * @return lazy stream of keys, has to be closed after use
+     * @see #scan(int)
+     */
+    default Stream<String> scanKeys(int batchSize) {
+        return scan(batchSize).map(Map.Entry::getKey);
+    }
 }
@@ -0,0 +1,371 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Store kept in a memory-mapped file, for single node deployments which have to keep data across restarts.
+ * Values live off-heap, only the index of keys is kept on heap.
+ *
+ * The file is an append-only log of records (key length, value length, key, value); removal is a record
+ * without value. The index is rebuilt by replaying the log on start. When the file is full, live records are
+ * rewritten to a new file which replaces the old one. New file is twice as large when live records would take
+ * more than half of it, up to the maximal size; when they do not fit even there, writes fail. A warning is logged
+ * once live records take most of the maximal size.
+ *
+ * The file is used by single process only, which holds a lock of a sibling file with .lock suffix until
+ * {@link #close()}. Writes survive crash of the process, but not of the operating system unless {@link #close()}
+ * forced them to disk before.
+ */
+public class MappedFileStore<T> implements KeyValueStore<T>, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileStore.class);
+
+    private static final int MAGIC = 0x53434b56;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int TOMBSTONE = -1;
+    private static final double NEAR_FULL_RATIO = 0.8;
+
+    private final Path path;
+    private final int capacity;
+    private final int maxCapacity;
+    private final RedisSerializer<T> serializer;
+    private final FileChannel lockChannel;
+
+    private volatile Segment segment;
+
+    /**
+     * @param path file the store is kept in, created when it does not exist
+     * @param capacity size of newly created file in bytes
+     * @param maxCapacity size in bytes the file may grow to
+     * @param serializer serializer of values
+     * @throws IllegalStateException when the file is used by another store
+     */
+    public MappedFileStore(Path path, int capacity, int maxCapacity, RedisSerializer<T> serializer) {
+        if (maxCapacity < capacity) {
+            throw new IllegalArgumentException("Maximal size of store file is lower than initial size");
+        }
+        this.path = Objects.requireNonNull(path);
+        this.capacity = capacity;
+        this.maxCapacity = maxCapacity;
+        this.serializer = Objects.requireNonNull(serializer);
+        this.lockChannel = lock(path);
+        try {
+            this.segment = open(path, capacity);
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+        LOGGER.info("Opened store file {} with {} entries", path, segment.index.size());
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return segment.index.containsKey(key);
+    }
+
+    @Override
+    public T get(String key) {
+        Segment current = segment;
+        Integer offset = current.index.get(key);
+        return offset == null ? null : serializer.deserialize(current.readValue(offset));
+    }
+
+    @Override
+    public Map<String, T> get(Collection<String> keys) {
+        Segment current = segment;
+        Map<String, T> result = new HashMap<>();
+        for (String key : keys) {
+            Integer offset = current.index.get(key);
+            if (offset != null) {
+                result.put(key, serializer.deserialize(current.readValue(offset)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        if (segment.index.containsKey(key)) {
+            append(key, null);
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, T value) {
+        append(key, serializer.serialize(Objects.requireNonNull(value)));
+    }
+
+    @Override
+    public synchronized boolean putIfAbsent(String key, T value) {
+        if (segment.index.containsKey(key)) {
+            return false;
+        }
+        append(key, serializer.serialize(Objects.requireNonNull(value)));
+        return true;
+    }
+
+    @Override
+    public synchronized void putAll(Map<String, T> values) {
+        values.forEach(this::put);
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<String> keys) {
+        keys.forEach(this::remove);
+    }
+
+    @Override
+    public Set<String> keys() {
+        return new HashSet<>(segment.index.keySet());
+    }
+
+    @Override
+    public Map<String, T> entries() {
+        Segment current = segment;
+        Map<String, T> result = new HashMap<>();
+        current.index.forEach((key, offset) -> result.put(key, serializer.deserialize(current.readValue(offset))));
+        return result;
+    }
+
+    @Override
+    public Stream<Map.Entry<String, T>> scan(int batchSize) {
+        Segment current = segment;
+        return current.index.entrySet().stream()
+            .<Map.Entry<String, T>>map(entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                serializer.deserialize(current.readValue(entry.getValue()))));
+    }
+
+    /**
+     * Forces modifications to disk and releases the file, so it may be opened again.
+     */
+    @Override
+    public synchronized void close() {
+        segment.buffer.force();
+        release();
+    }
+
+    private void append(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int size = recordSize(keyBytes.length, value == null ? TOMBSTONE : value.length);
+        Segment current = segment;
+        if (current.position + size > current.buffer.capacity()) {
+            current = compact(size);
+        }
+
+        int offset = current.position;
+        ByteBuffer record = current.buffer.duplicate();
+        record.position(offset + Integer.BYTES);
+        record.putInt(value == null ? TOMBSTONE : value.length);
+        record.put(keyBytes);
+        if (value != null) {
+            record.put(value);
+        }
+        // key length is written last, so record interrupted by a crash ends the log instead of corrupting it
+        current.buffer.putInt(offset, keyBytes.length);
+        current.position = offset + size;
+
+        if (value == null) {
+            current.index.remove(key);
+        } else {
+            current.index.put(key, offset);
+        }
+    }
+
+    private Segment compact(int required) {
+        Segment current = segment;
+        long live = FILE_HEADER_SIZE;
+        for (int offset : current.index.values()) {
+            live += current.sizeOf(offset);
+        }
+        long needed = live + required;
+        if (needed > maxCapacity) {
+            throw new IllegalStateException("Store file " + path + " is full");
+        }
+        long grown = Math.max(capacity, current.buffer.capacity());
+        while (needed > grown / 2 && grown < maxCapacity) {
+            grown *= 2;
+        }
+        int size = (int) Math.min(grown, maxCapacity);
+        if (size > current.buffer.capacity()) {
+            LOGGER.info("Store file {} grows to {} bytes", path, size);
+        }
+        if (needed > maxCapacity * NEAR_FULL_RATIO) {
+            LOGGER.warn("Store file {} is nearly full, {} of {} bytes live; raise storage.file.maxSize",
+                path, needed, maxCapacity);
+        }
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(compacted);
+            Segment next = open(compacted, size);
+            current.index.forEach((key, offset) -> {
+                int recordSize = current.sizeOf(offset);
+                ByteBuffer record = current.buffer.duplicate();
+                record.position(offset);
+                record.limit(offset + recordSize);
+                ByteBuffer target = next.buffer.duplicate();
+                target.position(next.position);
+                target.put(record);
+                next.index.put(key, next.position);
+                next.position += recordSize;
+            });
+            next.buffer.force();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Store file {} compacted, {} of {} bytes live", path, next.position, size);
+            segment = next;
+            return next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact store file " + path, e);
+        }
+    }
+
+    private Segment open(Path file, int minSize) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+            long size = Math.min(Math.max(minSize, channel.size()), Integer.MAX_VALUE);
+            // mapping stays valid after the channel is closed
+            Segment opened = new Segment(channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            int magic = opened.buffer.getInt(0);
+            if (magic == 0) {
+                opened.buffer.putInt(0, MAGIC);
+                opened.buffer.putInt(Integer.BYTES, VERSION);
+            } else if (magic != MAGIC || opened.buffer.getInt(Integer.BYTES) != VERSION) {
+                throw new IllegalStateException(file + " is not a store file");
+            }
+            opened.replay();
+            return opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open store file " + file, e);
+        }
+    }
+
+    private static FileChannel lock(Path file) {
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.tryLock() == null) {
+                throw new IllegalStateException("Store file " + file + " is used by another process");
+            }
+            return channel;
+        } catch (OverlappingFileLockException e) {
+            closeQuietly(channel);
+            throw new IllegalStateException("Store file " + file + " is already open", e);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Could not lock store file " + file, e);
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Closing the channel releases the lock.
+     */
+    private void release() {
+        closeQuietly(lockChannel);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not close store lock file", e);
+        }
+    }
+
+    private static int recordSize(int keyLength, int valueLength) {
+        return RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+    }
+
+    private static class Segment {
+        private final MappedByteBuffer buffer;
+        private final ConcurrentMap<String, Integer> index = new ConcurrentHashMap<>();
+        /** guarded by the store */
+        private int position = FILE_HEADER_SIZE;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void replay() {
+            while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+                int keyLength = buffer.getInt(position);
+                int valueLength = buffer.getInt(position + Integer.BYTES);
+                int size = recordSize(keyLength, valueLength);
+                if (keyLength <= 0 || position + size > buffer.capacity()) {
+                    break;
+                }
+                String key = new String(read(position + RECORD_HEADER_SIZE, keyLength), StandardCharsets.UTF_8);
+                if (valueLength == TOMBSTONE) {
+                    index.remove(key);
+                } else {
+                    index.put(key, position);
+                }
+                position += size;
+            }
+        }
+
+        private int sizeOf(int offset) {
+            return recordSize(buffer.getInt(offset), buffer.getInt(offset + Integer.BYTES));
+        }
+
+        private byte[] readValue(int offset) {
+            int keyLength = buffer.getInt(offset);
+            int valueLength = buffer.getInt(offset + Integer.BYTES);
+            return read(offset + RECORD_HEADER_SIZE + keyLength, valueLength);
+        }
+
+        private byte[] read(int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.get(bytes);
+            return bytes;
+        }
+    }
+}
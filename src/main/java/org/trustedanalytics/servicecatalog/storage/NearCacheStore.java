@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Keeps recently read values of the store in local memory, absence of value is cached as well. Cache is bounded
+ * and least recently used entries are evicted first.
+ *
+ * Every modification made through any instance of the service is published on {@link InvalidationBus}, so
+ * all instances drop the modified entry. Entries also expire after a while, which bounds staleness caused
+ * by a lost invalidation message. Keys are expected to be unique identifiers, as entries are invalidated by id.
+ *
+ * Invalidation which arrives while a value is being read from the delegate must not be overwritten by the value
+ * read, so every invalidation bumps generation of the key's stripe first; value read is cached, and dropped again
+ * when the generation changed since the read started.
+ */
+public class NearCacheStore<T> implements KeyValueStore<T>, PublicMetrics {
+
+    private static final String METRIC_PREFIX = "gauge.storage.nearcache.";
+    private static final int GENERATION_STRIPES = 64;
+
+    private final KeyValueStore<T> delegate;
+    private final InvalidationBus invalidationBus;
+    private final Cache<String, Optional<T>> values;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public NearCacheStore(KeyValueStore<T> delegate, InvalidationBus invalidationBus, long maxSize, long ttlMillis) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.invalidationBus = Objects.requireNonNull(invalidationBus);
+        this.values = CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+        invalidationBus.subscribe(InvalidationBus.Kind.SERVICE_INSTANCE_METADATA, this::invalidate);
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public T get(String key) {
+        Optional<T> value = values.getIfPresent(key);
+        if (value == null) {
+            long generation = generation(key);
+            value = Optional.ofNullable(delegate.get(key));
+            cache(key, value, generation);
+        }
+        return value.orElse(null);
+    }
+
+    @Override
+    public Map<String, T> get(Collection<String> keys) {
+        Map<String, T> result = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String key : keys) {
+            Optional<T> value = values.getIfPresent(key);
+            if (value == null) {
+                misses.add(key);
+            } else {
+                value.ifPresent(v -> result.put(key, v));
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Long> missGenerations = new HashMap<>();
+        misses.forEach(key -> missGenerations.put(key, generation(key)));
+        Map<String, T> fetched = delegate.get(misses);
+        for (String key : misses) {
+            Optional<T> value = Optional.ofNullable(fetched.get(key));
+            cache(key, value, missGenerations.get(key));
+            value.ifPresent(v -> result.put(key, v));
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+        publish(key);
+    }
+
+    @Override
+    public void put(String key, T value) {
+        delegate.put(key, value);
+        publish(key);
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, T value) {
+        boolean put = delegate.putIfAbsent(key, value);
+        if (put) {
+            publish(key);
+        }
+        return put;
+    }
+
+    @Override
+    public void putAll(Map<String, T> values) {
+        delegate.putAll(values);
+        values.keySet().forEach(this::publish);
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        delegate.removeAll(keys);
+        keys.forEach(this::publish);
+    }
+
+    @Override
+    public Set<String> keys() {
+        return delegate.keys();
+    }
+
+    @Override
+    public Map<String, T> entries() {
+        return delegate.entries();
+    }
+
+    @Override
+    public Stream<Map.Entry<String, T>> scan(int batchSize) {
+        return delegate.scan(batchSize);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = values.stats();
+        return Arrays.asList(
+            new Metric<>(METRIC_PREFIX + "size", values.size()),
+            new Metric<>(METRIC_PREFIX + "hit.ratio", stats.hitRate()),
+            new Metric<>(METRIC_PREFIX + "evictions", stats.evictionCount()));
+    }
+
+    private void publish(String key) {
+        invalidationBus.publish(InvalidationBus.Kind.SERVICE_INSTANCE_METADATA, parse(key).orElse(null));
+    }
+
+    private void invalidate(UUID id) {
+        if (id == null) {
+            for (int i = 0; i < GENERATION_STRIPES; i++) {
+                generations.incrementAndGet(i);
+            }
+            values.invalidateAll();
+        } else {
+            String key = id.toString();
+            generations.incrementAndGet(stripe(key));
+            values.invalidate(key);
+        }
+    }
+
+    /**
+     * Caches value read from the delegate. Invalidation which bumped the generation before the check is undone
+     * here, invalidation which bumps it after the check removes the value itself.
+     */
+    private void cache(String key, Optional<T> value, long generation) {
+        values.put(key, value);
+        if (generation(key) != generation) {
+            values.invalidate(key);
+        }
+    }
+
+    private long generation(String key) {
+        return generations.get(stripe(key));
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static Optional<UUID> parse(String key) {
+        try {
+            return Optional.of(UUID.fromString(key));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
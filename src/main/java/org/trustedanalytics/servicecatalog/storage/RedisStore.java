@@ -15,11 +15,25 @@
  */
 package org.trustedanalytics.servicecatalog.storage;
 
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class RedisStore<T> implements KeyValueStore<T> {
     private final String storeKey;
@@ -41,6 +55,24 @@ public class RedisStore<T> implements KeyValueStore<T> {
         return hashOps.get(storeKey, key);
     }
 
+    @Override
+    public Map<String, T> get(Collection<String> keys) {
+        Map<String, T> result = new HashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+
+        List<String> fields = new ArrayList<>(keys);
+        Iterator<T> values = hashOps.multiGet(storeKey, fields).iterator();
+        for (String field : fields) {
+            T value = values.next();
+            if (value != null) {
+                result.put(field, value);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void remove(String key) {
         hashOps.delete(storeKey, key);
@@ -56,6 +88,20 @@ public class RedisStore<T> implements KeyValueStore<T> {
         return hashOps.putIfAbsent(storeKey, key, value);
     }
 
+    @Override
+    public void putAll(Map<String, T> values) {
+        if (!values.isEmpty()) {
+            hashOps.putAll(storeKey, values);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            hashOps.delete(storeKey, keys.toArray());
+        }
+    }
+
     @Override
     public Set<String> keys() {
         return hashOps.keys(storeKey);
@@ -65,4 +111,22 @@ public class RedisStore<T> implements KeyValueStore<T> {
     public Map<String, T> entries() {
         return hashOps.entries(storeKey);
     }
+
+    @Override
+    public Stream<Map.Entry<String, T>> scan(int batchSize) {
+        return scan(hashOps, storeKey, batchSize);
+    }
+
+    static <T> Stream<Map.Entry<String, T>> scan(HashOperations<String, String, T> hashOps, String key,
+        int batchSize) {
+        Cursor<Map.Entry<String, T>> cursor = hashOps.scan(key, ScanOptions.scanOptions().count(batchSize).build());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to close cursor of " + key, e);
+                }
+            });
+    }
 }
@@ -17,14 +17,30 @@ package org.trustedanalytics.servicecatalog.storage;
 
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
 
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ServiceInstanceRegistry {
 
     private KeyValueStore<ServiceInstanceMetadata> serviceInstancesMetadataStore;
+    private final CreatorIndex creatorIndex;
 
     public ServiceInstanceRegistry(KeyValueStore<ServiceInstanceMetadata> store) {
+        this(store, null);
+    }
+
+    /**
+     * @param store store of instance metadata
+     * @param creatorIndex index of the same metadata by creator, null when the store has none
+     */
+    public ServiceInstanceRegistry(KeyValueStore<ServiceInstanceMetadata> store, CreatorIndex creatorIndex) {
         this.serviceInstancesMetadataStore = store;
+        this.creatorIndex = creatorIndex;
     }
 
     public void addInstanceCreator(UUID instanceUUID, ServiceInstanceMetadata metadata) {
@@ -38,4 +54,37 @@ public class ServiceInstanceRegistry {
     public ServiceInstanceMetadata getInstanceCreator(UUID instanceUUID) {
         return serviceInstancesMetadataStore.get(instanceUUID.toString());
     }
+
+    public Map<UUID, ServiceInstanceMetadata> getInstanceCreators(Collection<UUID> instanceUUIDs) {
+        Set<String> keys = instanceUUIDs.stream()
+            .map(UUID::toString)
+            .collect(Collectors.toSet());
+        return serviceInstancesMetadataStore.get(keys).entrySet().stream()
+            .collect(Collectors.toMap(entry -> UUID.fromString(entry.getKey()), Map.Entry::getValue));
+    }
+
+    /**
+     * @param batchSize number of entries fetched from the store at once
+     * @return lazy stream of all instance creators, has to be closed after use
+     */
+    public Stream<Map.Entry<UUID, ServiceInstanceMetadata>> scanInstanceCreators(int batchSize) {
+        return serviceInstancesMetadataStore.scan(batchSize)
+            .<Map.Entry<UUID, ServiceInstanceMetadata>>map(entry ->
+                new AbstractMap.SimpleImmutableEntry<>(UUID.fromString(entry.getKey()), entry.getValue()));
+    }
+
+    /**
+     * @param creatorUUID unique identifier of the user
+     * @param batchSize number of entries fetched from the store at once
+     * @return lazy stream of instances created by given user, has to be closed after use
+     * @throws UnsupportedOperationException when the store cannot be queried by creator
+     */
+    public Stream<Map.Entry<UUID, ServiceInstanceMetadata>> scanInstancesOfCreator(UUID creatorUUID, int batchSize) {
+        if (creatorIndex == null) {
+            throw new UnsupportedOperationException("Instance metadata store cannot be queried by creator");
+        }
+        return creatorIndex.scanByCreator(creatorUUID.toString(), batchSize)
+            .<Map.Entry<UUID, ServiceInstanceMetadata>>map(entry ->
+                new AbstractMap.SimpleImmutableEntry<>(UUID.fromString(entry.getKey()), entry.getValue()));
+    }
 }
@@ -0,0 +1,402 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Redis store which spreads entries among fixed number of hashes, picked by hash of the key, so no single
+ * Redis key holds the whole data set.
+ *
+ * Store can take over entries of single hash kept by {@link RedisStore}. Until {@link #migrate()} finds the legacy
+ * hash gone, reads which miss the buckets fall back to it. Nodes not upgraded yet keep writing to the legacy hash,
+ * so migration is meant to be repeated in the background ({@link #scheduleMigration(long)}) until every node
+ * runs this store; legacy fallback comes back whenever a run finds the legacy hash again.
+ *
+ * Legacy hash and buckets live in different Redis Cluster slots, so no Redis call touches more than one of them.
+ * Migration copies entries to buckets and only then deletes them from the legacy hash; removals delete the key from
+ * the legacy hash before the bucket, so entry copied and found removed from the legacy hash meanwhile is deleted
+ * from the bucket again. One node migrates at a time, guarded by {@link ClusterLock}.
+ */
+public class ShardedRedisStore<T> implements KeyValueStore<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedRedisStore.class);
+
+    private static final String MIGRATION_LOCK = "storage-migration";
+    private static final long MIGRATION_LOCK_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Stores field-value pairs given as arguments in the bucket, unless present already.
+     * Returns fields which were stored.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> FILL_SCRIPT = new DefaultRedisScript<>(
+        "local stored = {}\n"
+            + "for i = 1, #ARGV, 2 do\n"
+            + "  if redis.call('HSETNX', KEYS[1], ARGV[i], ARGV[i + 1]) == 1 then\n"
+            + "    table.insert(stored, ARGV[i])\n"
+            + "  end\n"
+            + "end\n"
+            + "return stored", List.class);
+
+    /**
+     * Deletes fields given as arguments from the legacy hash. Returns fields which were gone already.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>(
+        "local gone = {}\n"
+            + "for i, field in ipairs(ARGV) do\n"
+            + "  if redis.call('HDEL', KEYS[1], field) == 0 then\n"
+            + "    table.insert(gone, field)\n"
+            + "  end\n"
+            + "end\n"
+            + "return gone", List.class);
+
+    private static final RedisSerializer<String> FIELD_SERIALIZER = new StringRedisSerializer();
+
+    private static final RedisSerializer<byte[]> RAW_SERIALIZER = new RedisSerializer<byte[]>() {
+        @Override
+        public byte[] serialize(byte[] bytes) {
+            return bytes;
+        }
+
+        @Override
+        public byte[] deserialize(byte[] bytes) {
+            return bytes;
+        }
+    };
+
+    private final RedisOperations<String, T> redisTemplate;
+    private final HashOperations<String, String, T> hashOps;
+    private final String storeKey;
+    private final int buckets;
+    private final String legacyKey;
+    private final int migrationBatchSize;
+    private final ClusterLock migrationLock;
+
+    private volatile boolean migrated;
+
+    /**
+     * @param redisTemplate Redis client
+     * @param key prefix of bucket keys
+     * @param buckets number of buckets, must not change once entries are stored
+     * @param legacyKey key of single hash to take entries over from, null when there is none
+     * @param migrationBatchSize number of entries moved at once during migration
+     * @param migrationLock lock letting one node migrate at a time
+     */
+    public ShardedRedisStore(RedisOperations<String, T> redisTemplate, String key, int buckets, String legacyKey,
+        int migrationBatchSize, ClusterLock migrationLock) {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("At least one bucket is required");
+        }
+        this.redisTemplate = redisTemplate;
+        this.hashOps = redisTemplate.opsForHash();
+        this.storeKey = key;
+        this.buckets = buckets;
+        this.legacyKey = legacyKey;
+        this.migrationBatchSize = migrationBatchSize;
+        this.migrationLock = Objects.requireNonNull(migrationLock);
+        this.migrated = legacyKey == null;
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return hashOps.hasKey(bucket(key), key) || (!migrated && hashOps.hasKey(legacyKey, key));
+    }
+
+    @Override
+    public T get(String key) {
+        T value = hashOps.get(bucket(key), key);
+        if (value == null && !migrated) {
+            value = hashOps.get(legacyKey, key);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, T> get(Collection<String> keys) {
+        Map<String, List<String>> byBucket = new HashMap<>();
+        for (String key : keys) {
+            byBucket.computeIfAbsent(bucket(key), bucket -> new ArrayList<>()).add(key);
+        }
+
+        Map<String, T> result = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        byBucket.forEach((bucket, fields) -> multiGet(bucket, fields, result, misses));
+        if (!misses.isEmpty() && !migrated) {
+            multiGet(legacyKey, misses, result, new ArrayList<>());
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(String key) {
+        if (legacyKey != null) {
+            hashOps.delete(legacyKey, key);
+        }
+        hashOps.delete(bucket(key), key);
+    }
+
+    @Override
+    public void put(String key, T value) {
+        hashOps.put(bucket(key), key, value);
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, T value) {
+        if (!migrated && hashOps.hasKey(legacyKey, key)) {
+            return false;
+        }
+        return hashOps.putIfAbsent(bucket(key), key, value);
+    }
+
+    @Override
+    public void putAll(Map<String, T> values) {
+        Map<String, Map<String, T>> byBucket = new HashMap<>();
+        values.forEach((key, value) ->
+            byBucket.computeIfAbsent(bucket(key), bucket -> new HashMap<>()).put(key, value));
+        byBucket.forEach(hashOps::putAll);
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        if (legacyKey != null && !keys.isEmpty()) {
+            hashOps.delete(legacyKey, keys.toArray());
+        }
+        Map<String, List<String>> byBucket = new HashMap<>();
+        keys.forEach(key -> byBucket.computeIfAbsent(bucket(key), bucket -> new ArrayList<>()).add(key));
+        byBucket.forEach((bucket, fields) -> hashOps.delete(bucket, fields.toArray()));
+    }
+
+    @Override
+    public Set<String> keys() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < buckets; i++) {
+            keys.addAll(hashOps.keys(bucketKey(i)));
+        }
+        if (!migrated) {
+            keys.addAll(hashOps.keys(legacyKey));
+        }
+        return keys;
+    }
+
+    @Override
+    public Map<String, T> entries() {
+        Map<String, T> entries = new HashMap<>();
+        if (!migrated) {
+            entries.putAll(hashOps.entries(legacyKey));
+        }
+        for (int i = 0; i < buckets; i++) {
+            entries.putAll(hashOps.entries(bucketKey(i)));
+        }
+        return entries;
+    }
+
+    /**
+     * Hashes are scanned one after another, cursor of the next one is opened only when the previous one is
+     * exhausted and closed. Stream.flatMap is not used, as it buffers whole inner stream before passing its
+     * first element on (JDK-8075939).
+     */
+    @Override
+    public Stream<Map.Entry<String, T>> scan(int batchSize) {
+        List<String> hashes = new ArrayList<>();
+        if (!migrated) {
+            hashes.add(legacyKey);
+        }
+        IntStream.range(0, buckets).mapToObj(this::bucketKey).forEach(hashes::add);
+        HashesScan scan = new HashesScan(hashes.iterator(), batchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan, Spliterator.NONNULL), false)
+            .onClose(scan::close);
+    }
+
+    /**
+     * Runs {@link #migrate()} in the background with given delay between runs, first run starts immediately.
+     * Failed run is retried with the next one.
+     *
+     * @param intervalMillis delay between runs
+     */
+    public void scheduleMigration(long intervalMillis) {
+        if (legacyKey == null) {
+            return;
+        }
+        ScheduledExecutorService migrator = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("storage-migration-%d").setDaemon(true).build());
+        migrator.scheduleWithFixedDelay(() -> {
+            try {
+                migrate();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Migration of " + legacyKey + " failed, will be retried", e);
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Moves entries of legacy hash to buckets, one batch at a time, one Redis call per bucket. Entries already
+     * present in buckets are newer and are kept. Skipped while other node migrates; safe to run concurrently with
+     * removals. Afterwards checks whether the legacy hash is gone, so reads stop or resume falling back to it.
+     *
+     * @return number of entries moved by this call
+     */
+    public long migrate() {
+        if (legacyKey == null || !redisTemplate.hasKey(legacyKey)) {
+            migrated = true;
+            return 0;
+        }
+        migrated = false;
+        if (!migrationLock.tryLock(MIGRATION_LOCK, MIGRATION_LOCK_TTL)) {
+            LOGGER.debug("Entries of {} migrated by another node", legacyKey);
+            return 0;
+        }
+
+        LOGGER.info("Migrating entries of {} to {} buckets", legacyKey, buckets);
+        long moved = 0;
+        try (Stream<Map.Entry<String, T>> legacyEntries = RedisStore.scan(hashOps, legacyKey, migrationBatchSize)) {
+            Iterator<List<Map.Entry<String, T>>> batches =
+                Iterators.partition(legacyEntries.iterator(), migrationBatchSize);
+            while (batches.hasNext()) {
+                moved += moveBatch(batches.next());
+                LOGGER.debug("{} entries of {} migrated", moved, legacyKey);
+                if (!migrationLock.renew(MIGRATION_LOCK, MIGRATION_LOCK_TTL)) {
+                    LOGGER.warn("Lost migration lock, migration of {} stopped", legacyKey);
+                    return moved;
+                }
+            }
+        } finally {
+            migrationLock.unlock(MIGRATION_LOCK);
+        }
+
+        migrated = !redisTemplate.hasKey(legacyKey);
+        LOGGER.info("{} entries of {} migrated, migration {}", moved, legacyKey, migrated ? "done" : "pending");
+        return moved;
+    }
+
+    private long moveBatch(List<Map.Entry<String, T>> scanned) {
+        @SuppressWarnings("unchecked")
+        RedisSerializer<T> valueSerializer = (RedisSerializer<T>) redisTemplate.getHashValueSerializer();
+        Map<String, List<byte[]>> byBucket = new HashMap<>();
+        for (Map.Entry<String, T> entry : scanned) {
+            List<byte[]> args = byBucket.computeIfAbsent(bucket(entry.getKey()), bucket -> new ArrayList<>());
+            args.add(FIELD_SERIALIZER.serialize(entry.getKey()));
+            args.add(valueSerializer.serialize(entry.getValue()));
+        }
+
+        Set<String> stored = new HashSet<>();
+        byBucket.forEach((bucket, args) -> stored.addAll(fields(FILL_SCRIPT, bucket, args)));
+        List<byte[]> taken = scanned.stream()
+            .map(entry -> FIELD_SERIALIZER.serialize(entry.getKey()))
+            .collect(Collectors.toList());
+        List<String> removedMeanwhile = fields(TAKE_SCRIPT, legacyKey, taken).stream()
+            .filter(stored::contains)
+            .collect(Collectors.toList());
+        if (!removedMeanwhile.isEmpty()) {
+            removeAll(removedMeanwhile);
+        }
+        return stored.size() - removedMeanwhile.size();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private List<String> fields(RedisScript<List> script, String key, List<byte[]> args) {
+        List<String> fields = redisTemplate.execute(script, RAW_SERIALIZER, (RedisSerializer) FIELD_SERIALIZER,
+            Collections.singletonList(key), args.toArray());
+        return fields == null ? Collections.emptyList() : fields;
+    }
+
+    private void multiGet(String hash, List<String> fields, Map<String, T> result, List<String> misses) {
+        Iterator<T> values = hashOps.multiGet(hash, fields).iterator();
+        for (String field : fields) {
+            T value = values.next();
+            if (value != null) {
+                result.put(field, value);
+            } else {
+                misses.add(field);
+            }
+        }
+    }
+
+    private class HashesScan extends AbstractIterator<Map.Entry<String, T>> implements AutoCloseable {
+        private final Iterator<String> hashes;
+        private final int batchSize;
+        private Stream<Map.Entry<String, T>> current;
+        private Iterator<Map.Entry<String, T>> entries = Collections.emptyIterator();
+
+        private HashesScan(Iterator<String> hashes, int batchSize) {
+            this.hashes = hashes;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        protected Map.Entry<String, T> computeNext() {
+            while (!entries.hasNext()) {
+                close();
+                if (!hashes.hasNext()) {
+                    return endOfData();
+                }
+                current = RedisStore.scan(hashOps, hashes.next(), batchSize);
+                entries = current.iterator();
+            }
+            return entries.next();
+        }
+
+        @Override
+        public void close() {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    private String bucket(String key) {
+        int hash = Hashing.murmur3_32().hashString(key, StandardCharsets.UTF_8).asInt();
+        return bucketKey(Math.floorMod(hash, buckets));
+    }
+
+    private String bucketKey(int bucket) {
+        return storeKey + ":" + bucket;
+    }
+}
@@ -15,40 +15,259 @@
  */
 package org.trustedanalytics.servicecatalog.storage;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
 
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+
 public class StorageConfig {
 
+    /**
+     * Name of the store which instance metadata are kept in, provided by the configuration of active profile.
+     */
+    static final String METADATA_BACKEND = "serviceInstancesMetadataBackend";
+
+    public static final String IN_MEMORY_PROFILE = "in-memory-storage";
+    public static final String MAPPED_FILE_PROFILE = "mapped-file-storage";
+    public static final String JPA_PROFILE = "jpa-storage";
+
     private StorageConfig(){
     }
 
     @Configuration
+    public static class MetadataStorageConfig {
+
+        @Bean
+        @Primary
+        KeyValueStore<ServiceInstanceMetadata> serviceInstancesMetadataStore(
+            @Qualifier(METADATA_BACKEND) KeyValueStore<ServiceInstanceMetadata> backend,
+            CounterService counterService,
+            @Value("${storage.writeBehind.enabled:false}") boolean writeBehind,
+            @Value("${storage.writeBehind.interval:200}") long flushInterval,
+            @Value("${storage.writeBehind.batch:500}") int batchSize,
+            @Value("${storage.writeBehind.maxPending:10000}") int maxPending,
+            @Value("${storage.writeBehind.retries:3}") int retries,
+            @Value("${storage.writeBehind.retryDelay:100}") long retryDelay) {
+            if (!writeBehind) {
+                return backend;
+            }
+            return new WriteBehindStore<>(backend, counterService, flushInterval,
+                batchSize, maxPending, retries, retryDelay);
+        }
+
+        @Bean
+        protected ServiceInstanceRegistry serviceInstanceRegistry(
+            KeyValueStore<ServiceInstanceMetadata> serviceInstancesMetadataStore,
+            @Qualifier(METADATA_BACKEND) KeyValueStore<ServiceInstanceMetadata> backend) {
+            // creator queries go to the backend directly, writes still pending in write-behind buffer are missed
+            CreatorIndex creatorIndex = backend instanceof CreatorIndex ? (CreatorIndex) backend : null;
+            return new ServiceInstanceRegistry(serviceInstancesMetadataStore, creatorIndex);
+        }
+
+        @Bean
+        protected AsyncServiceInstanceRegistry asyncServiceInstanceRegistry(
+            KeyValueStore<ServiceInstanceMetadata> serviceInstancesMetadataStore,
+            @Value("${storage.async.threads:16}") int threads) {
+            return new AsyncServiceInstanceRegistry(new ExecutorAsyncStore<>(serviceInstancesMetadataStore,
+                Executors.newFixedThreadPool(threads,
+                    new ThreadFactoryBuilder().setNameFormat("storage-async-%d").setDaemon(true).build())));
+        }
+    }
+
+    /**
+     * Keeps instance metadata in Redis, unless one of local storage profiles is active.
+     */
+    @Configuration
+    @Conditional(RedisStorageCondition.class)
     public static class RedisStorageConfig {
 
+        private static final String METADATA_KEY = "service-instances-metadata";
+
+        @Bean
+        public RedisOperations<String, ServiceInstanceMetadata> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+            @Value("${storage.serializer:json}") String serializer) {
+            RedisSerializer<ServiceInstanceMetadata> valueSerializer = "binary".equals(serializer)
+                ? new CompactMetadataSerializer()
+                : new JacksonJsonRedisSerializer<>(ServiceInstanceMetadata.class);
+            return CommonConfiguration.redisTemplate(redisConnectionFactory, valueSerializer);
+        }
+
+        @Bean(name = METADATA_BACKEND)
+        NearCacheStore<ServiceInstanceMetadata> redisServiceInstancesMetadataStore(
+            RedisOperations<String, ServiceInstanceMetadata> redisTemplate, InvalidationBus invalidationBus,
+            ClusterLock clusterLock,
+            @Value("${storage.nearCache.size:100000}") long nearCacheSize,
+            @Value("${storage.nearCache.ttl:600000}") long nearCacheTtl,
+            @Value("${storage.buckets:0}") int buckets,
+            @Value("${storage.migrationBatch:1000}") int migrationBatch,
+            @Value("${storage.migrationInterval:60000}") long migrationInterval,
+            @Value("${storage.migrationDone:false}") boolean migrationDone) {
+            KeyValueStore<ServiceInstanceMetadata> store;
+            if (buckets > 0) {
+                // once every node runs sharded store and legacy hash is gone, migrationDone drops the fallback
+                ShardedRedisStore<ServiceInstanceMetadata> sharded = new ShardedRedisStore<>(redisTemplate,
+                    METADATA_KEY, buckets, migrationDone ? null : METADATA_KEY, migrationBatch, clusterLock);
+                sharded.scheduleMigration(migrationInterval);
+                store = sharded;
+            } else {
+                store = new RedisStore<>(redisTemplate, METADATA_KEY);
+            }
+            return new NearCacheStore<>(store, invalidationBus, nearCacheSize, nearCacheTtl);
+        }
+
+    }
+
+    /**
+     * Broadcasts cache invalidations to all nodes over Redis pub/sub and coordinates periodic jobs with Redis
+     * locks, whatever store keeps instance metadata, unless the deployment is single node.
+     */
+    @Configuration
+    @Conditional(RedisInvalidationCondition.class)
+    public static class RedisInvalidationConfig {
+
+        @Bean
+        public RedisOperations<String, String> invalidationRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+            return CommonConfiguration.redisTemplate(redisConnectionFactory, new StringRedisSerializer());
+        }
+
+        @Bean
+        public InvalidationBus invalidationBus(RedisOperations<String, String> invalidationRedisTemplate,
+            @Value("${cache.invalidation.channel:service-catalog-invalidations}") String channel) {
+            return new InvalidationBus(invalidationRedisTemplate, channel);
+        }
+
+        @Bean
+        public RedisMessageListenerContainer invalidationListenerContainer(
+            RedisConnectionFactory redisConnectionFactory, InvalidationBus invalidationBus) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisConnectionFactory);
+            container.addMessageListener(invalidationBus, new ChannelTopic(invalidationBus.getChannel()));
+            return container;
+        }
+
         @Bean
-        public RedisOperations<String, ServiceInstanceMetadata> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
-            return CommonConfiguration.redisTemplate(redisConnectionFactory,
-                new JacksonJsonRedisSerializer<>(ServiceInstanceMetadata.class));
+        public ClusterLock clusterLock(RedisOperations<String, String> invalidationRedisTemplate) {
+            return new ClusterLock(invalidationRedisTemplate);
         }
 
+    }
+
+    /**
+     * Invalidates caches of the local node only and runs periodic jobs without locking, for single node
+     * deployments: in-memory and mapped-file storage profiles, or any deployment with cache.invalidation.local set.
+     */
+    @Configuration
+    @Conditional(LocalInvalidationCondition.class)
+    public static class LocalInvalidationConfig {
+
         @Bean
-        KeyValueStore<ServiceInstanceMetadata> redisServiceInstancesMetadataStore(RedisOperations<String, ServiceInstanceMetadata> redisTemplate) {
-            return new RedisStore<>(redisTemplate, "service-instances-metadata");
+        public InvalidationBus invalidationBus() {
+            return InvalidationBus.local();
         }
 
         @Bean
-        protected ServiceInstanceRegistry serviceInstanceRegistry(KeyValueStore<ServiceInstanceMetadata> redisCreatedApplicationsStore) {
-            return new ServiceInstanceRegistry(redisCreatedApplicationsStore);
+        public ClusterLock clusterLock() {
+            return ClusterLock.local();
         }
+    }
+
+    /**
+     * Keeps instance metadata on heap, so the service runs without Redis. For local runs and tests; activate
+     * together with default profile.
+     */
+    @Configuration
+    @Profile(IN_MEMORY_PROFILE)
+    public static class InMemoryStorageConfig {
+
+        @Bean(name = METADATA_BACKEND)
+        ConcurrentMapStore<ServiceInstanceMetadata> inMemoryServiceInstancesMetadataStore() {
+            return new ConcurrentMapStore<>();
+        }
+    }
+
+    /**
+     * Keeps instance metadata in a memory-mapped file, so single node deployment runs without Redis and keeps
+     * metadata across restarts.
+     */
+    @Configuration
+    @Profile(MAPPED_FILE_PROFILE)
+    public static class MappedFileStorageConfig {
 
+        @Bean(name = METADATA_BACKEND)
+        MappedFileStore<ServiceInstanceMetadata> mappedFileServiceInstancesMetadataStore(
+            @Value("${storage.file.path:service-instances-metadata.db}") String path,
+            @Value("${storage.file.size:67108864}") int size,
+            @Value("${storage.file.maxSize:1073741824}") int maxSize) {
+            return new MappedFileStore<>(Paths.get(path), size, maxSize, new CompactMetadataSerializer());
+        }
+    }
+
+    /**
+     * Keeps instance metadata in relational database given by spring.datasource. Data source and JPA are
+     * configured only when this profile is active; table is created by schema.sql on startup.
+     */
+    @Configuration
+    @Profile(JPA_PROFILE)
+    @Import({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+    @EnableJpaRepositories(basePackageClasses = InstanceMetadataRepository.class)
+    public static class JpaStorageConfig {
+
+        @Bean(name = METADATA_BACKEND)
+        JpaMetadataStore jpaServiceInstancesMetadataStore(InstanceMetadataRepository instanceMetadataRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${storage.jpa.batch:500}") int batchSize) {
+            return new JpaMetadataStore(instanceMetadataRepository, new TransactionTemplate(transactionManager),
+                batchSize);
+        }
+    }
+
+    private static class RedisStorageCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return !context.getEnvironment().acceptsProfiles(IN_MEMORY_PROFILE, MAPPED_FILE_PROFILE, JPA_PROFILE);
+        }
+    }
+
+    private static class LocalInvalidationCondition implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().acceptsProfiles(IN_MEMORY_PROFILE, MAPPED_FILE_PROFILE)
+                || context.getEnvironment().getProperty("cache.invalidation.local", Boolean.class, false);
+        }
+    }
+
+    private static class RedisInvalidationCondition extends LocalInvalidationCondition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return !super.matches(context, metadata);
+        }
     }
 
     private static class CommonConfiguration {
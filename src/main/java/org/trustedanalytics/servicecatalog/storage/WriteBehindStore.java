@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.storage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Store which queues modifications and writes them to the delegate in the background, in batches. Modifications
+ * of the same key made before it is written are coalesced, values not written yet are served from the queue.
+ *
+ * Failed batch is retried a few times with growing delay, then dropped. Queue is flushed on {@link #close()},
+ * so graceful shutdown loses nothing; modifications queued when the process dies are lost. When the queue is
+ * full, modifications are written synchronously.
+ */
+public class WriteBehindStore<T> implements KeyValueStore<T>, AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindStore.class);
+
+    public static final String FLUSHED_METRIC = "counter.storage.writebehind.flushed";
+    public static final String DROPPED_METRIC = "counter.storage.writebehind.dropped";
+
+    private final KeyValueStore<T> delegate;
+    private final CounterService counterService;
+    private final int batchSize;
+    private final int maxPending;
+    private final int maxRetries;
+    private final long retryDelayMillis;
+    private final ConcurrentMap<String, Optional<T>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("write-behind-%d").setDaemon(true).build());
+
+    /**
+     * @param delegate store modifications are written to
+     * @param counterService counter of written and dropped modifications
+     * @param flushIntervalMillis delay between flushes
+     * @param batchSize maximal number of modifications written at once
+     * @param maxPending maximal number of queued modifications
+     * @param maxRetries number of retries of failed batch
+     * @param retryDelayMillis delay before first retry, doubled for every next one
+     */
+    public WriteBehindStore(KeyValueStore<T> delegate, CounterService counterService, long flushIntervalMillis,
+        int batchSize, int maxPending, int maxRetries, long retryDelayMillis) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.counterService = Objects.requireNonNull(counterService);
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxRetries = maxRetries;
+        this.retryDelayMillis = retryDelayMillis;
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        Optional<T> queued = pending.get(key);
+        return queued != null ? queued.isPresent() : delegate.hasKey(key);
+    }
+
+    @Override
+    public T get(String key) {
+        Optional<T> queued = pending.get(key);
+        return queued != null ? queued.orElse(null) : delegate.get(key);
+    }
+
+    @Override
+    public Map<String, T> get(Collection<String> keys) {
+        Map<String, T> result = new HashMap<>();
+        List<String> notQueued = new ArrayList<>();
+        for (String key : keys) {
+            Optional<T> queued = pending.get(key);
+            if (queued == null) {
+                notQueued.add(key);
+            } else {
+                queued.ifPresent(value -> result.put(key, value));
+            }
+        }
+        if (!notQueued.isEmpty()) {
+            result.putAll(delegate.get(notQueued));
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(String key) {
+        enqueue(key, Optional.empty());
+    }
+
+    @Override
+    public void put(String key, T value) {
+        enqueue(key, Optional.of(value));
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, T value) {
+        flush();
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public Set<String> keys() {
+        flush();
+        return delegate.keys();
+    }
+
+    @Override
+    public Map<String, T> entries() {
+        flush();
+        return delegate.entries();
+    }
+
+    @Override
+    public Stream<Map.Entry<String, T>> scan(int batchSize) {
+        flush();
+        return delegate.scan(batchSize);
+    }
+
+    /**
+     * Writes all queued modifications.
+     */
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            Map<String, Optional<T>> batch = new HashMap<>();
+            for (Map.Entry<String, Optional<T>> entry : pending.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() >= batchSize) {
+                    break;
+                }
+            }
+            write(batch);
+            batch.forEach(pending::remove);
+        }
+    }
+
+    /**
+     * Stops background writes and flushes the queue.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(retryDelayMillis << maxRetries, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Flushing {} queued modifications", pending.size());
+        flush();
+    }
+
+    private void enqueue(String key, Optional<T> value) {
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            LOGGER.debug("Write-behind queue full, writing {} synchronously", key);
+            write(Collections.singletonMap(key, value));
+            return;
+        }
+        pending.put(key, value);
+    }
+
+    private void write(Map<String, Optional<T>> batch) {
+        Map<String, T> puts = new HashMap<>();
+        List<String> removals = new ArrayList<>();
+        batch.forEach((key, value) -> {
+            if (value.isPresent()) {
+                puts.put(key, value.get());
+            } else {
+                removals.add(key);
+            }
+        });
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                if (!puts.isEmpty()) {
+                    delegate.putAll(puts);
+                }
+                if (!removals.isEmpty()) {
+                    delegate.removeAll(removals);
+                }
+                counterService.increment(FLUSHED_METRIC);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    LOGGER.error("Dropping {} modifications after {} retries", batch.size(), maxRetries, e);
+                    counterService.increment(DROPPED_METRIC);
+                    return;
+                }
+                LOGGER.warn("Failed to write {} modifications, retrying", batch.size(), e);
+                sleep(retryDelayMillis << attempt);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
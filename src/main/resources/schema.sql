@@ -0,0 +1,9 @@
+-- Table of JpaMetadataStore (jpa-storage profile), applied on every startup, hence IF NOT EXISTS.
+CREATE TABLE IF NOT EXISTS service_instance_metadata (
+    instance_guid VARCHAR(36) NOT NULL PRIMARY KEY,
+    creator_guid VARCHAR(36),
+    creator_name VARCHAR(255)
+);
+-- Instances of a creator are read in pages ordered by instance guid, so the index covers both columns.
+CREATE INDEX IF NOT EXISTS service_instance_metadata_creator_idx
+    ON service_instance_metadata (creator_guid, instance_guid);
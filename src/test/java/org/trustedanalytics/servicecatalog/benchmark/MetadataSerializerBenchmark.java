@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.benchmark;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+import org.trustedanalytics.servicecatalog.storage.CompactMetadataSerializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares JSON and compact binary format of instance metadata. Bytes per entry of both formats are printed
+ * before the run. Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.trustedanalytics.servicecatalog.benchmark.MetadataSerializerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MetadataSerializerBenchmark {
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private RedisSerializer<ServiceInstanceMetadata> serializer;
+    private ServiceInstanceMetadata metadata;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        serializer = serializer(format);
+        metadata = sample();
+        serialized = serializer.serialize(metadata);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(metadata);
+    }
+
+    @Benchmark
+    public ServiceInstanceMetadata decode() {
+        return serializer.deserialize(serialized);
+    }
+
+    private static RedisSerializer<ServiceInstanceMetadata> serializer(String format) {
+        return "binary".equals(format)
+            ? new CompactMetadataSerializer()
+            : new JacksonJsonRedisSerializer<>(ServiceInstanceMetadata.class);
+    }
+
+    private static ServiceInstanceMetadata sample() {
+        return new ServiceInstanceMetadata(UUID.randomUUID(), "john.doe@example.com");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (String format : new String[] {"json", "binary"}) {
+            System.out.printf("%s: %d bytes per entry%n", format, serializer(format).serialize(sample()).length);
+        }
+        new Runner(new OptionsBuilder()
+            .include(MetadataSerializerBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
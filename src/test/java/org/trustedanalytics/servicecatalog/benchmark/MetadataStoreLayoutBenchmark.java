@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.benchmark;
+
+import org.trustedanalytics.servicecatalog.storage.ClusterLock;
+import org.trustedanalytics.servicecatalog.storage.KeyValueStore;
+import org.trustedanalytics.servicecatalog.storage.RedisStore;
+import org.trustedanalytics.servicecatalog.storage.ShardedRedisStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.trustedanalytics.servicecatalog.benchmark.RedisBenchmarkFixture.LOAD_BATCH;
+import static org.trustedanalytics.servicecatalog.benchmark.RedisBenchmarkFixture.STORE_KEY;
+
+/**
+ * Compares single hash layout of {@link RedisStore} with bucketed layout of {@link ShardedRedisStore}.
+ *
+ * Requires Redis server, see {@link RedisBenchmarkFixture}. Run with: mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=org.trustedanalytics.servicecatalog.benchmark.MetadataStoreLayoutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class MetadataStoreLayoutBenchmark {
+
+    @Param({"1000000"})
+    private int entries;
+
+    @Param({"single", "sharded"})
+    private String layout;
+
+    @Param({"64"})
+    private int buckets;
+
+    private RedisBenchmarkFixture redis;
+    private KeyValueStore<String> store;
+    private List<String> keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        redis = new RedisBenchmarkFixture();
+        RedisTemplate<String, String> template = redis.template();
+
+        store = "sharded".equals(layout)
+            ? new ShardedRedisStore<>(template, STORE_KEY, buckets, null, LOAD_BATCH, ClusterLock.local())
+            : new RedisStore<>(template, STORE_KEY);
+        keys = RedisBenchmarkFixture.load(entries, batch -> load(template, batch));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redis.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return store.get(randomKey());
+    }
+
+    @Benchmark
+    public Map<String, String> getPage() {
+        List<String> page = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            page.add(randomKey());
+        }
+        return store.get(page);
+    }
+
+    @Benchmark
+    public void put() {
+        store.put(randomKey(), RedisBenchmarkFixture.value(0));
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 3)
+    public Set<String> keys() {
+        return store.keys();
+    }
+
+    private void load(RedisTemplate<String, String> template, Map<String, String> batch) {
+        template.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                batch.forEach(store::put);
+                return null;
+            }
+        });
+    }
+
+    private String randomKey() {
+        return RedisBenchmarkFixture.randomKey(keys);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(MetadataStoreLayoutBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.benchmark;
+
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Redis server and data set shared by store benchmarks. Server is given by redis.host and redis.port system
+ * properties (localhost:6379 by default). Only keys of the benchmark store are removed before run, unless
+ * whole database flush is requested with -Dbenchmark.redis.flush=true.
+ */
+class RedisBenchmarkFixture implements AutoCloseable {
+
+    static final String STORE_KEY = "benchmark-metadata";
+    static final int LOAD_BATCH = 1000;
+
+    private static final String FLUSH_PROPERTY = "benchmark.redis.flush";
+
+    private final JedisConnectionFactory connectionFactory;
+    private final RedisTemplate<String, String> template;
+
+    RedisBenchmarkFixture() {
+        connectionFactory = new JedisConnectionFactory();
+        connectionFactory.setHostName(System.getProperty("redis.host", "localhost"));
+        connectionFactory.setPort(Integer.getInteger("redis.port", 6379));
+        connectionFactory.getPoolConfig().setMaxTotal(16);
+        connectionFactory.afterPropertiesSet();
+
+        template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setDefaultSerializer(new StringRedisSerializer());
+        template.afterPropertiesSet();
+        clear();
+    }
+
+    RedisTemplate<String, String> template() {
+        return template;
+    }
+
+    @Override
+    public void close() {
+        connectionFactory.destroy();
+    }
+
+    private void clear() {
+        if (Boolean.getBoolean(FLUSH_PROPERTY)) {
+            template.execute(connection -> {
+                connection.flushDb();
+                return null;
+            }, true);
+            return;
+        }
+        Set<String> stale = template.keys(STORE_KEY + "*");
+        if (!stale.isEmpty()) {
+            template.delete(stale);
+        }
+    }
+
+    /**
+     * @param entries number of entries to generate
+     * @param sink receives generated entries in batches of {@link #LOAD_BATCH}
+     * @return keys of generated entries
+     */
+    static List<String> load(int entries, Consumer<Map<String, String>> sink) {
+        List<String> keys = new ArrayList<>(entries);
+        Map<String, String> batch = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+            String key = UUID.randomUUID().toString();
+            keys.add(key);
+            batch.put(key, value(i));
+            if (batch.size() == LOAD_BATCH || i == entries - 1) {
+                sink.accept(batch);
+                batch.clear();
+            }
+        }
+        return keys;
+    }
+
+    static String value(int i) {
+        return "{\"creatorGuid\":\"" + UUID.randomUUID() + "\",\"creatorName\":\"user-" + i + "\"}";
+    }
+
+    static String randomKey(List<String> keys) {
+        return keys.get(ThreadLocalRandom.current().nextInt(keys.size()));
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.benchmark;
+
+import org.trustedanalytics.servicecatalog.storage.ConcurrentMapStore;
+import org.trustedanalytics.servicecatalog.storage.KeyValueStore;
+import org.trustedanalytics.servicecatalog.storage.MappedFileStore;
+import org.trustedanalytics.servicecatalog.storage.RedisStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.trustedanalytics.servicecatalog.benchmark.RedisBenchmarkFixture.STORE_KEY;
+
+/**
+ * Compares {@link ConcurrentMapStore} and {@link MappedFileStore} with {@link RedisStore}.
+ *
+ * Redis backend requires Redis server, see {@link RedisBenchmarkFixture}. Run with: mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=org.trustedanalytics.servicecatalog.benchmark.StoreBackendBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class StoreBackendBenchmark {
+
+    @Param({"100000"})
+    private int entries;
+
+    @Param({"in-memory", "mapped-file", "redis"})
+    private String backend;
+
+    private RedisBenchmarkFixture redis;
+    private Path file;
+    private KeyValueStore<String> store;
+    private List<String> keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (backend) {
+            case "in-memory":
+                store = new ConcurrentMapStore<>();
+                break;
+            case "mapped-file":
+                file = Files.createTempFile("benchmark-metadata", ".db");
+                store = new MappedFileStore<>(file, 256 * 1024 * 1024, 256 * 1024 * 1024,
+                    new StringRedisSerializer());
+                break;
+            default:
+                redis = new RedisBenchmarkFixture();
+                store = new RedisStore<>(redis.template(), STORE_KEY);
+        }
+        keys = RedisBenchmarkFixture.load(entries, store::putAll);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (redis != null) {
+            redis.close();
+        }
+        if (file != null) {
+            ((MappedFileStore<String>) store).close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return store.get(randomKey());
+    }
+
+    @Benchmark
+    public Map<String, String> getPage() {
+        List<String> page = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            page.add(randomKey());
+        }
+        return store.get(page);
+    }
+
+    @Benchmark
+    public void put() {
+        store.put(randomKey(), RedisBenchmarkFixture.value(ThreadLocalRandom.current().nextInt()));
+    }
+
+    private String randomKey() {
+        return RedisBenchmarkFixture.randomKey(keys);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(StoreBackendBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.cf.ServiceInstancesOperations;
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+import org.trustedanalytics.servicecatalog.storage.ClusterLock;
+import org.trustedanalytics.servicecatalog.storage.ServiceInstanceRegistry;
+
+import feign.Response;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InstanceMetadataReconcilerTest {
+
+    private InstanceMetadataReconciler sut;
+
+    @Mock
+    private ServiceInstanceRegistry registry;
+
+    @Mock
+    private ServiceInstancesOperations instancesClient;
+
+    @Mock
+    private CounterService counterService;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    private final UUID existing = UUID.randomUUID();
+    private final UUID deleted = UUID.randomUUID();
+    private final UUID unknown = UUID.randomUUID();
+
+    @Before
+    public void setUp() {
+        final Stream<Map.Entry<UUID, ServiceInstanceMetadata>> entries = Stream.of(existing, deleted, unknown)
+            .<Map.Entry<UUID, ServiceInstanceMetadata>>map(instance ->
+                new AbstractMap.SimpleImmutableEntry<>(instance, new ServiceInstanceMetadata()));
+        when(registry.scanInstanceCreators(2)).thenReturn(entries);
+        final Response ok = response(200);
+        final Response notFound = response(404);
+        final Response error = response(500);
+        when(instancesClient.getServiceInstance(existing)).thenReturn(ok);
+        when(instancesClient.getServiceInstance(deleted)).thenReturn(notFound);
+        when(instancesClient.getServiceInstance(unknown)).thenReturn(error);
+        sut = new InstanceMetadataReconciler(registry, instancesClient, counterService, gaugeService,
+            ClusterLock.local(), true, 2, 1000, 0.5, 60000);
+    }
+
+    @Test
+    public void reconcile_removeOnlyInstancesNotFoundInCloudController() {
+        assertEquals(1, sut.reconcile());
+
+        verify(registry).deleteInstanceCreator(deleted);
+        verify(registry, never()).deleteInstanceCreator(existing);
+        verify(registry, never()).deleteInstanceCreator(unknown);
+        verify(counterService).increment(InstanceMetadataReconciler.RECLAIMED_METRIC);
+        verify(gaugeService).submit(InstanceMetadataReconciler.CHECKED_METRIC, 3);
+    }
+
+    @Test
+    public void reconcile_cloudControllerUnreachable_keepMetadata() {
+        when(instancesClient.getServiceInstance(any(UUID.class))).thenThrow(new IllegalStateException("down"));
+
+        assertEquals(0, sut.reconcile());
+
+        verify(registry, never()).deleteInstanceCreator(any(UUID.class));
+    }
+
+    @Test
+    public void reconcile_lockHeldByAnotherNode_skipPass() {
+        final ClusterLock clusterLock = mock(ClusterLock.class);
+        when(clusterLock.tryLock(anyString(), anyLong())).thenReturn(false);
+        sut = new InstanceMetadataReconciler(registry, instancesClient, counterService, gaugeService,
+            clusterLock, true, 2, 1000, 0.5, 60000);
+
+        assertEquals(0, sut.reconcile());
+
+        verify(registry, never()).scanInstanceCreators(anyInt());
+        verify(clusterLock, never()).unlock(anyString());
+    }
+
+    @Test
+    public void reconcile_mostInstancesNotFound_stopWithoutRemoving() {
+        when(instancesClient.getServiceInstance(existing)).thenReturn(response(404));
+
+        assertEquals(0, sut.reconcile());
+
+        verify(registry, never()).deleteInstanceCreator(any(UUID.class));
+        verify(counterService).increment(InstanceMetadataReconciler.ABORTED_METRIC);
+    }
+
+    private static Response response(int status) {
+        return Response.create(status, "", Collections.<String, Collection<String>>emptyMap(), new byte[0]);
+    }
+}
@@ -31,6 +31,7 @@ import org.trustedanalytics.cloud.cc.api.CcServiceInstance;
 import org.trustedanalytics.cloud.cc.api.CcSummary;
 import org.trustedanalytics.servicecatalog.service.ApplicationsService;
 import org.trustedanalytics.servicecatalog.service.rest.ApplicationsController;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 import org.trustedanalytics.servicecatalog.utils.ApplicationsTestsResources;
 
 import com.google.common.collect.ImmutableList;
@@ -52,11 +53,14 @@ public class ApplicationsControllerTest {
     @Mock
     private CcOperations ccClient;
 
+    @Mock
+    private InvalidationBus invalidationBus;
+
     private ApplicationsController sut;
 
     @Before
     public void setup() {
-        sut = new ApplicationsController(new ApplicationsService(ccClient));
+        sut = new ApplicationsController(new ApplicationsService(ccClient, invalidationBus));
     }
 
     @Test
@@ -102,6 +106,7 @@ public class ApplicationsControllerTest {
         sut.restageApp(appGuid, new CcAppStatus(CcAppState.RESTAGING));
 
         verify(ccClient).restageApp(appGuid);
+        verify(invalidationBus).publish(InvalidationBus.Kind.APP, appGuid);
     }
 
     @Test(expected = UnsupportedOperationException.class)
@@ -130,6 +135,7 @@ public class ApplicationsControllerTest {
         sut.deleteApp(app, Optional.of(false));
 
         verify(ccClient).deleteApp(app);
+        verify(invalidationBus).publish(InvalidationBus.Kind.APP, app);
     }
 
     @Test
@@ -26,6 +26,7 @@ import org.trustedanalytics.cloud.cc.api.CcAppSummary;
 import org.trustedanalytics.cloud.cc.api.CcOperations;
 import org.trustedanalytics.cloud.cc.api.CcSummary;
 import org.trustedanalytics.servicecatalog.service.ApplicationsService;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -44,13 +45,16 @@ public class ApplicationsServiceTest {
     @Mock
     private CcOperations ccClient;
 
+    @Mock
+    private InvalidationBus invalidationBus;
+
     private ApplicationsService sut;
 
     private String guid = "68b9c96a-2a92-4f5d-9860-475d2223c6f5";
 
     @Before
     public void setup() {
-        sut = new ApplicationsService(ccClient);
+        sut = new ApplicationsService(ccClient, invalidationBus);
     }
 
     @Test
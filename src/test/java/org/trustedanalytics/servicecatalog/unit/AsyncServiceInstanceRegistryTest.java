@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+import org.trustedanalytics.servicecatalog.storage.AsyncServiceInstanceRegistry;
+import org.trustedanalytics.servicecatalog.storage.ExecutorAsyncStore;
+import org.trustedanalytics.servicecatalog.storage.KeyValueStore;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AsyncServiceInstanceRegistryTest {
+
+    private AsyncServiceInstanceRegistry sut;
+
+    @Mock
+    private KeyValueStore<ServiceInstanceMetadata> store;
+
+    @Mock
+    private Executor executor;
+
+    @Before
+    public void setUp() {
+        sut = new AsyncServiceInstanceRegistry(new ExecutorAsyncStore<>(store, Runnable::run));
+    }
+
+    @Test
+    public void getInstanceCreators_fetchAllAtOnceAndKeyByUuid() {
+        final UUID found = UUID.randomUUID();
+        final UUID missing = UUID.randomUUID();
+        final ServiceInstanceMetadata metadata = new ServiceInstanceMetadata(UUID.randomUUID(), "test-user");
+        when(store.get(ImmutableSet.of(found.toString(), missing.toString())))
+            .thenReturn(ImmutableMap.of(found.toString(), metadata));
+
+        assertEquals(ImmutableMap.of(found, metadata), sut.getInstanceCreators(Arrays.asList(found, missing)).join());
+    }
+
+    @Test
+    public void addInstanceCreator_runOnExecutor() {
+        sut = new AsyncServiceInstanceRegistry(new ExecutorAsyncStore<>(store, executor));
+
+        final CompletableFuture<Void> added = sut.addInstanceCreator(UUID.randomUUID(),
+            new ServiceInstanceMetadata(UUID.randomUUID(), "test-user"));
+
+        assertFalse(added.isDone());
+        verify(executor).execute(any(Runnable.class));
+    }
+}
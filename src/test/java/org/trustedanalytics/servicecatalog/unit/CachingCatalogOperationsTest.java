@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.service.CachingCatalogOperations;
+import org.trustedanalytics.servicecatalog.service.CatalogOperations;
+import org.trustedanalytics.servicecatalog.service.CatalogSnapshot;
+import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationRequest;
+
+import com.google.common.collect.ImmutableMap;
+
+import feign.Response;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingCatalogOperationsTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @Mock
+    private CatalogOperations delegate;
+
+    @Test
+    public void getSnapshot_notExpired_fetchCatalogOnce() {
+        final UUID id = UUID.randomUUID();
+        when(delegate.getCatalogResponse()).thenReturn(catalogResponse(id));
+        final CachingCatalogOperations sut = new CachingCatalogOperations(delegate, 60000);
+
+        final CatalogSnapshot first = sut.getSnapshot();
+        final CatalogSnapshot second = sut.getSnapshot();
+
+        assertSame(first, second);
+        assertTrue(first.getService(id).isPresent());
+        verify(delegate, times(1)).getCatalogResponse();
+    }
+
+    @Test
+    public void getSnapshot_expiredAndNotModified_keepSnapshot() {
+        final UUID id = UUID.randomUUID();
+        when(delegate.getCatalogResponse()).thenReturn(catalogResponse(id));
+        when(delegate.getCatalogResponse(ETAG)).thenReturn(
+            Response.create(304, "Not Modified", Collections.<String, Collection<String>>emptyMap(), new byte[0]));
+        final CachingCatalogOperations sut = new CachingCatalogOperations(delegate, 0);
+
+        final CatalogSnapshot first = sut.getSnapshot();
+        final CatalogSnapshot second = sut.getSnapshot();
+
+        assertSame(first, second);
+        verify(delegate).getCatalogResponse(ETAG);
+    }
+
+    @Test
+    public void register_dropCachedCatalog() {
+        final UUID id = UUID.randomUUID();
+        when(delegate.getCatalogResponse()).thenReturn(catalogResponse(id), catalogResponse(id));
+        final CachingCatalogOperations sut = new CachingCatalogOperations(delegate, 60000);
+
+        sut.getSnapshot();
+        sut.register(new ServiceRegistrationRequest());
+        sut.getSnapshot();
+
+        verify(delegate, times(2)).getCatalogResponse();
+    }
+
+    @Test
+    public void getCatalog_returnCatalogItems() {
+        final UUID id = UUID.randomUUID();
+        when(delegate.getCatalogResponse()).thenReturn(catalogResponse(id));
+        final CachingCatalogOperations sut = new CachingCatalogOperations(delegate, 60000);
+
+        assertEquals(id, sut.getCatalog().getServices().iterator().next().getId());
+    }
+
+    private Response catalogResponse(UUID id) {
+        final String body = "{\"services\":[{\"id\":\"" + id + "\",\"name\":\"service\"}]}";
+        final Map<String, Collection<String>> headers =
+            ImmutableMap.<String, Collection<String>>of("ETag", Collections.singletonList(ETAG));
+        return Response.create(200, "OK", headers, body.getBytes(StandardCharsets.UTF_8));
+    }
+}
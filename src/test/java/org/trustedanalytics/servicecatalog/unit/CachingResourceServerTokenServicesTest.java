@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.security.CachingResourceServerTokenServices;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.MacSigner;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingResourceServerTokenServicesTest {
+
+    private CachingResourceServerTokenServices sut;
+
+    @Mock
+    private ResourceServerTokenServices delegate;
+
+    @Mock
+    private CounterService counterService;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Before
+    public void setUp() {
+        sut = new CachingResourceServerTokenServices(delegate, counterService, gaugeService, 100);
+    }
+
+    @Test
+    public void loadAuthentication_sameToken_verifyOnceAndReturnCopies() {
+        final String token = token(TimeUnit.HOURS.toSeconds(1));
+        final OAuth2Authentication authentication = authentication();
+        when(delegate.loadAuthentication(token)).thenReturn(authentication);
+
+        final OAuth2Authentication first = sut.loadAuthentication(token);
+        final OAuth2Authentication second = sut.loadAuthentication(token);
+
+        assertNotSame(first, second);
+        assertEquals(first.getName(), second.getName());
+        verify(delegate, times(1)).loadAuthentication(token);
+        verify(counterService).increment(CachingResourceServerTokenServices.HIT_METRIC);
+        verify(counterService).increment(CachingResourceServerTokenServices.MISS_METRIC);
+    }
+
+    @Test
+    public void loadAuthentication_tokenExpired_verifyAgain() {
+        final String token = token(-1);
+        final OAuth2Authentication authentication = authentication();
+        when(delegate.loadAuthentication(token)).thenReturn(authentication);
+
+        sut.loadAuthentication(token);
+        sut.loadAuthentication(token);
+
+        verify(delegate, times(2)).loadAuthentication(token);
+    }
+
+    @Test
+    public void loadAuthentication_invalidToken_doNotCache() {
+        final String token = token(TimeUnit.HOURS.toSeconds(1));
+        when(delegate.loadAuthentication(token)).thenThrow(new InvalidTokenException("invalid"));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                sut.loadAuthentication(token);
+            } catch (InvalidTokenException e) {
+                // expected
+            }
+        }
+
+        verify(delegate, times(2)).loadAuthentication(token);
+    }
+
+    private String token(long validitySeconds) {
+        final long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + validitySeconds;
+        return JwtHelper.encode("{\"user_name\":\"user\",\"exp\":" + exp + "}", new MacSigner("secret")).getEncoded();
+    }
+
+    private OAuth2Authentication authentication() {
+        final Authentication user = mock(Authentication.class);
+        when(user.getName()).thenReturn("user");
+        return new OAuth2Authentication(mock(OAuth2Request.class), user);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.security.ClientTokenHolder;
+import org.trustedanalytics.servicecatalog.security.TokenFetchException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.security.oauth2.client.resource.OAuth2ProtectedResourceDetails;
+import org.springframework.security.oauth2.client.token.AccessTokenProvider;
+import org.springframework.security.oauth2.client.token.AccessTokenRequest;
+import org.springframework.security.oauth2.client.token.grant.client.ClientCredentialsResourceDetails;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+
+import java.util.Date;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientTokenHolderTest {
+
+    private static final long REFRESH_MARGIN = 60000;
+
+    private ClientTokenHolder sut;
+
+    @Mock
+    private AccessTokenProvider tokenProvider;
+
+    @Mock
+    private CounterService counterService;
+
+    @Mock
+    private GaugeService gaugeService;
+
+    @Before
+    public void setUp() {
+        sut = new ClientTokenHolder(new ClientCredentialsResourceDetails(), tokenProvider, counterService,
+            gaugeService, REFRESH_MARGIN);
+    }
+
+    @Test
+    public void getToken_tokenValid_fetchTokenOnce() {
+        mockTokens(token("first", 3600000));
+
+        assertEquals("first", sut.getToken());
+        assertEquals("first", sut.getToken());
+
+        verify(tokenProvider, times(1)).obtainAccessToken(any(OAuth2ProtectedResourceDetails.class), any(AccessTokenRequest.class));
+        verify(gaugeService).submit(eq(ClientTokenHolder.REFRESH_TIME_METRIC), anyDouble());
+    }
+
+    @Test
+    public void refreshIfExpiring_tokenExpiresSoon_refreshToken() {
+        mockTokens(token("first", REFRESH_MARGIN / 2), token("second", 3600000));
+        sut.getToken();
+
+        sut.refreshIfExpiring();
+
+        assertEquals("second", sut.getToken());
+    }
+
+    @Test
+    public void refreshIfExpiring_tokenValidLong_keepToken() {
+        mockTokens(token("first", 3600000));
+        sut.getToken();
+
+        sut.refreshIfExpiring();
+
+        verify(tokenProvider, times(1)).obtainAccessToken(any(OAuth2ProtectedResourceDetails.class), any(AccessTokenRequest.class));
+    }
+
+    @Test
+    public void refreshIfExpiring_refreshFails_keepCurrentToken() {
+        when(tokenProvider.obtainAccessToken(any(OAuth2ProtectedResourceDetails.class), any(AccessTokenRequest.class)))
+            .thenReturn(token("first", REFRESH_MARGIN / 2))
+            .thenThrow(new IllegalStateException("UAA unavailable"));
+        sut.getToken();
+
+        sut.refreshIfExpiring();
+
+        assertEquals("first", sut.getToken());
+        verify(counterService).increment(ClientTokenHolder.REFRESH_FAILURES_METRIC);
+    }
+
+    @Test(expected = TokenFetchException.class)
+    public void getToken_noTokenAndUaaFails_throwException() {
+        when(tokenProvider.obtainAccessToken(any(OAuth2ProtectedResourceDetails.class), any(AccessTokenRequest.class)))
+            .thenThrow(new IllegalStateException("UAA unavailable"));
+
+        sut.getToken();
+    }
+
+    private void mockTokens(OAuth2AccessToken first, OAuth2AccessToken... next) {
+        when(tokenProvider.obtainAccessToken(any(OAuth2ProtectedResourceDetails.class), any(AccessTokenRequest.class)))
+            .thenReturn(first, next);
+    }
+
+    private OAuth2AccessToken token(String value, long validityMillis) {
+        DefaultOAuth2AccessToken token = new DefaultOAuth2AccessToken(value);
+        token.setExpiration(new Date(System.currentTimeMillis() + validityMillis));
+        return token;
+    }
+}
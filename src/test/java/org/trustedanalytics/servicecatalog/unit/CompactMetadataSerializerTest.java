@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+import org.trustedanalytics.servicecatalog.storage.CompactMetadataSerializer;
+
+import org.junit.Test;
+import org.springframework.data.redis.serializer.JacksonJsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.UUID;
+
+public class CompactMetadataSerializerTest {
+
+    private final CompactMetadataSerializer sut = new CompactMetadataSerializer();
+
+    @Test
+    public void deserialize_serializedMetadata_returnEqualMetadata() {
+        final ServiceInstanceMetadata metadata = new ServiceInstanceMetadata(UUID.randomUUID(), "test-user");
+
+        final byte[] bytes = sut.serialize(metadata);
+
+        assertEquals(metadata, sut.deserialize(bytes));
+        assertTrue(bytes.length < new JacksonJsonRedisSerializer<>(ServiceInstanceMetadata.class)
+            .serialize(metadata).length);
+    }
+
+    @Test
+    public void deserialize_nonCanonicalCreatorGuid_keepItAsText() {
+        final ServiceInstanceMetadata metadata = new ServiceInstanceMetadata();
+        metadata.setCreatorUUID("AC5E9498-526B-4ED7-93BC-D2D7412BCCA5");
+
+        assertEquals(metadata, sut.deserialize(sut.serialize(metadata)));
+    }
+
+    @Test
+    public void deserialize_jsonValue_readWithJackson() {
+        final ServiceInstanceMetadata metadata = new ServiceInstanceMetadata(UUID.randomUUID(), "user");
+        final byte[] json = new JacksonJsonRedisSerializer<>(ServiceInstanceMetadata.class).serialize(metadata);
+
+        assertEquals(metadata, sut.deserialize(json));
+    }
+
+    @Test
+    public void deserialize_emptyValue_returnNull() {
+        assertNull(sut.deserialize(new byte[0]));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void deserialize_unknownVersion_throwSerializationException() {
+        sut.deserialize(new byte[] {42, 0});
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.trustedanalytics.servicecatalog.storage.ConcurrentMapStore;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ConcurrentMapStoreTest {
+
+    private final ConcurrentMapStore<String> sut = new ConcurrentMapStore<>();
+
+    @Test
+    public void get_manyKeys_skipMissing() {
+        sut.put("a", "1");
+        sut.put("c", "3");
+
+        assertEquals(ImmutableMap.of("a", "1", "c", "3"), sut.get(Arrays.asList("a", "b", "c")));
+    }
+
+    @Test
+    public void putIfAbsent_keyPresent_keepValue() {
+        assertTrue(sut.putIfAbsent("a", "1"));
+        assertFalse(sut.putIfAbsent("a", "2"));
+
+        assertEquals("1", sut.get("a"));
+    }
+
+    @Test
+    public void scan_modifiedDuringScan_notFail() {
+        sut.putAll(ImmutableMap.of("a", "1", "b", "2"));
+
+        try (Stream<Map.Entry<String, String>> scanned = sut.scan(1)) {
+            Map<String, String> entries = scanned
+                .peek(entry -> sut.remove(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+            assertEquals(ImmutableMap.of("a", "1", "b", "2"), entries);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.cf.ConnectionPoolMonitor;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConnectionPoolMonitorTest {
+
+    private static final long IDLE_TIMEOUT = 30000;
+
+    private ConnectionPoolMonitor sut;
+
+    @Mock
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @Before
+    public void setUp() {
+        sut = new ConnectionPoolMonitor(connectionManager, IDLE_TIMEOUT);
+    }
+
+    @Test
+    public void evictConnections_closeExpiredAndIdleConnections() {
+        when(connectionManager.getTotalStats()).thenReturn(new PoolStats(0, 0, 0, 10));
+
+        sut.evictConnections();
+
+        verify(connectionManager).closeExpiredConnections();
+        verify(connectionManager).closeIdleConnections(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void metrics_reportPoolUtilization() {
+        when(connectionManager.getTotalStats()).thenReturn(new PoolStats(3, 1, 2, 10));
+
+        final Map<String, Number> metrics = sut.metrics().stream()
+            .collect(Collectors.toMap(Metric::getName, metric -> (Number) metric.getValue()));
+
+        assertEquals(3, metrics.get("gauge.cc.http.pool.leased").intValue());
+        assertEquals(2, metrics.get("gauge.cc.http.pool.available").intValue());
+        assertEquals(1, metrics.get("gauge.cc.http.pool.pending").intValue());
+        assertEquals(10, metrics.get("gauge.cc.http.pool.max").intValue());
+    }
+}
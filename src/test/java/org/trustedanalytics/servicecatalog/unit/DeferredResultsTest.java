@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.trustedanalytics.servicecatalog.service.rest.DeferredResults;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.util.concurrent.RejectedExecutionException;
+
+public class DeferredResultsTest {
+
+    private DeferredResults sut;
+
+    @Before
+    public void setUp() {
+        sut = new DeferredResults(Schedulers.immediate());
+    }
+
+    @Test
+    public void of_observableEmitsItem_setResult() {
+        final DeferredResult<String> result = sut.of(Observable.just("item"));
+
+        assertTrue(result.hasResult());
+        assertEquals("item", result.getResult());
+    }
+
+    @Test
+    public void of_observableFails_setErrorResult() {
+        final IllegalArgumentException error = new IllegalArgumentException();
+
+        final DeferredResult<String> result = sut.of(Observable.error(error));
+
+        assertSame(error, result.getResult());
+    }
+
+    @Test
+    public void of_observableEmpty_setErrorResult() {
+        final DeferredResult<String> result = sut.of(Observable.empty());
+
+        assertTrue(result.getResult() instanceof RuntimeException);
+    }
+
+    @Test
+    public void of_executorSaturated_setErrorResult() {
+        sut = new DeferredResults(Schedulers.from(command -> {
+            throw new RejectedExecutionException();
+        }));
+
+        final DeferredResult<String> result = sut.of(Observable.just("item"));
+
+        assertTrue(result.getResult() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void of_observableNotCompleted_keepRequestPending() {
+        final DeferredResult<String> result = sut.of(Observable.never());
+
+        assertFalse(result.hasResult());
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InvalidationBusTest {
+
+    private static final String CHANNEL = "invalidations";
+
+    private InvalidationBus sut;
+
+    private final List<UUID> invalidated = new ArrayList<>();
+
+    @Mock
+    private RedisOperations<String, String> redisTemplate;
+
+    @Before
+    public void setUp() {
+        sut = new InvalidationBus(redisTemplate, CHANNEL);
+        sut.subscribe(InvalidationBus.Kind.SPACE, invalidated::add);
+    }
+
+    @Test
+    public void publish_invalidateLocallyAndSendToChannel() {
+        final UUID space = UUID.randomUUID();
+
+        sut.publish(InvalidationBus.Kind.SPACE, space);
+
+        assertEquals(Collections.singletonList(space), invalidated);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+    }
+
+    @Test
+    public void publish_redisUnavailable_invalidateLocally() {
+        final UUID space = UUID.randomUUID();
+        doThrow(new RedisConnectionFailureException("down")).when(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+
+        sut.publish(InvalidationBus.Kind.SPACE, space);
+
+        assertEquals(Collections.singletonList(space), invalidated);
+    }
+
+    @Test
+    public void onMessage_publishedByOtherInstance_invalidateLocally() {
+        final UUID space = UUID.randomUUID();
+        final InvalidationBus other = new InvalidationBus(redisTemplate, CHANNEL);
+
+        other.publish(InvalidationBus.Kind.SPACE, space);
+        sut.onMessage(sentMessage(), null);
+
+        assertEquals(Collections.singletonList(space), invalidated);
+    }
+
+    @Test
+    public void onMessage_publishedByThisInstance_ignore() {
+        sut.publish(InvalidationBus.Kind.SPACE, UUID.randomUUID());
+        invalidated.clear();
+
+        sut.onMessage(sentMessage(), null);
+
+        assertTrue(invalidated.isEmpty());
+    }
+
+    @Test
+    public void onMessage_malformedMessage_ignore() {
+        sut.onMessage(message("node:UNKNOWN:"), null);
+        sut.onMessage(message("garbage"), null);
+
+        assertTrue(invalidated.isEmpty());
+    }
+
+    private Message sentMessage() {
+        final ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), captor.capture());
+        return message(captor.getValue());
+    }
+
+    private static Message message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+import org.trustedanalytics.servicecatalog.storage.InstanceMetadataEntity;
+import org.trustedanalytics.servicecatalog.storage.InstanceMetadataRepository;
+import org.trustedanalytics.servicecatalog.storage.JpaMetadataStore;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JpaMetadataStoreTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private JpaMetadataStore sut;
+
+    @Mock
+    private InstanceMetadataRepository repository;
+
+    @Mock
+    private TransactionOperations transactions;
+
+    @Before
+    public void setUp() {
+        when(transactions.execute(any(TransactionCallback.class))).thenAnswer(invocation ->
+            ((TransactionCallback<?>) invocation.getArguments()[0]).doInTransaction(null));
+        sut = new JpaMetadataStore(repository, transactions, BATCH_SIZE);
+    }
+
+    @Test
+    public void get_manyKeys_fetchInBatches() {
+        when(repository.findAll(anyListOf(String.class))).thenReturn(Collections.emptyList());
+
+        sut.get(Arrays.asList("a", "b", "c", "d", "e"));
+
+        verify(repository, times(3)).findAll(anyListOf(String.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void putAll_updateExistingAndInsertOthers() {
+        final ServiceInstanceMetadata updated = metadata();
+        final InstanceMetadataEntity existing = new InstanceMetadataEntity("a", metadata());
+        when(repository.findAll(Arrays.asList("a", "b"))).thenReturn(Collections.singletonList(existing));
+        final ArgumentCaptor<Iterable> saved = ArgumentCaptor.forClass(Iterable.class);
+
+        sut.putAll(ImmutableMap.of("a", updated, "b", metadata()));
+
+        verify(repository).save(saved.capture());
+        final List<InstanceMetadataEntity> inserted = (List<InstanceMetadataEntity>) saved.getValue();
+        assertEquals(1, inserted.size());
+        assertEquals("b", inserted.get(0).getId());
+        assertEquals(updated, existing.getMetadata());
+    }
+
+    @Test
+    public void putIfAbsent_insertedConcurrently_returnFalse() {
+        when(repository.exists(anyString())).thenReturn(false);
+        when(repository.saveAndFlush(any(InstanceMetadataEntity.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertFalse(sut.putIfAbsent("a", metadata()));
+    }
+
+    @Test
+    public void scanByCreator_fetchPagesFollowingLastInstance() {
+        final String creator = UUID.randomUUID().toString();
+        when(repository.findByCreatorGuidAndInstanceGuidGreaterThanOrderByInstanceGuidAsc(eq(creator), eq(""),
+            any(Pageable.class))).thenReturn(Arrays.asList(
+                new InstanceMetadataEntity("a", metadata()), new InstanceMetadataEntity("b", metadata())));
+        when(repository.findByCreatorGuidAndInstanceGuidGreaterThanOrderByInstanceGuidAsc(eq(creator), eq("b"),
+            any(Pageable.class))).thenReturn(Collections.singletonList(new InstanceMetadataEntity("c", metadata())));
+        when(repository.findByCreatorGuidAndInstanceGuidGreaterThanOrderByInstanceGuidAsc(eq(creator), eq("c"),
+            any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        final List<String> instances = sut.scanByCreator(creator, BATCH_SIZE)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("a", "b", "c"), instances);
+        verify(repository, never()).findByInstanceGuidGreaterThanOrderByInstanceGuidAsc(anyString(),
+            any(Pageable.class));
+    }
+
+    private static ServiceInstanceMetadata metadata() {
+        return new ServiceInstanceMetadata(UUID.randomUUID(), "test-user");
+    }
+}
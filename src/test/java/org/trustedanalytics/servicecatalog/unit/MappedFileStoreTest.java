@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.trustedanalytics.servicecatalog.storage.MappedFileStore;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class MappedFileStoreTest {
+
+    private static final int CAPACITY = 4096;
+    private static final int MAX_CAPACITY = 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+    private MappedFileStore<String> sut;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.getRoot().toPath().resolve("store.db");
+        sut = open();
+    }
+
+    @After
+    public void tearDown() {
+        sut.close();
+    }
+
+    @Test
+    public void put_get_returnLatestValue() {
+        sut.put("a", "1");
+        sut.put("a", "2");
+        sut.put("b", "3");
+
+        assertEquals("2", sut.get("a"));
+        assertEquals(ImmutableMap.of("a", "2", "b", "3"), sut.get(Arrays.asList("a", "b", "c")));
+    }
+
+    @Test
+    public void remove_hideValue() {
+        sut.put("a", "1");
+
+        sut.remove("a");
+
+        assertNull(sut.get("a"));
+        assertFalse(sut.hasKey("a"));
+    }
+
+    @Test
+    public void putIfAbsent_keyPresent_keepValue() {
+        assertTrue(sut.putIfAbsent("a", "1"));
+        assertFalse(sut.putIfAbsent("a", "2"));
+
+        assertEquals("1", sut.get("a"));
+    }
+
+    @Test
+    public void open_existingFile_restoreEntries() {
+        sut.put("a", "1");
+        sut.put("b", "2");
+        sut.put("a", "3");
+        sut.remove("b");
+        sut.close();
+
+        MappedFileStore<String> reopened = open();
+
+        assertEquals(ImmutableMap.of("a", "3"), reopened.entries());
+    }
+
+    @Test
+    public void put_fileFull_compactAndKeepEntries() {
+        for (int i = 0; i < 1000; i++) {
+            sut.put("a", "value-" + i);
+            sut.put("b", "value-" + i);
+        }
+
+        assertEquals(ImmutableMap.of("a", "value-999", "b", "value-999"), sut.entries());
+        sut.close();
+        assertEquals(ImmutableMap.of("a", "value-999", "b", "value-999"), open().entries());
+    }
+
+    @Test
+    public void put_liveEntriesExceedCapacity_growFileAndKeepEntries() throws IOException {
+        for (int i = 0; i < CAPACITY; i++) {
+            sut.put("key-" + i, "value");
+        }
+
+        assertEquals(CAPACITY, sut.keys().size());
+        assertTrue(Files.size(file) > CAPACITY);
+        sut.close();
+        assertEquals(CAPACITY, open().keys().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void put_liveEntriesExceedMaxCapacity_fail() {
+        sut.close();
+        sut = new MappedFileStore<>(file, CAPACITY, CAPACITY, new StringRedisSerializer());
+
+        for (int i = 0; i < CAPACITY; i++) {
+            sut.put("key-" + i, "value");
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void open_fileAlreadyOpen_fail() {
+        open();
+    }
+
+    @Test
+    public void scan_returnAllEntries() {
+        sut.put("a", "1");
+        sut.put("b", "2");
+
+        try (Stream<Map.Entry<String, String>> scanned = sut.scan(1)) {
+            assertEquals(ImmutableSet.of("a", "b"), scanned.map(Map.Entry::getKey).collect(Collectors.toSet()));
+        }
+    }
+
+    private MappedFileStore<String> open() {
+        return new MappedFileStore<>(file, CAPACITY, MAX_CAPACITY, new StringRedisSerializer());
+    }
+}
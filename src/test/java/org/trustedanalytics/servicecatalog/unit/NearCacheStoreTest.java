@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
+import org.trustedanalytics.servicecatalog.storage.KeyValueStore;
+import org.trustedanalytics.servicecatalog.storage.NearCacheStore;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NearCacheStoreTest {
+
+    private NearCacheStore<String> sut;
+
+    @Mock
+    private KeyValueStore<String> delegate;
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    private Consumer<UUID> invalidation;
+
+    private final String key = UUID.randomUUID().toString();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        sut = new NearCacheStore<>(delegate, invalidationBus, 100, 60000);
+        final ArgumentCaptor<Consumer> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(eq(InvalidationBus.Kind.SERVICE_INSTANCE_METADATA), captor.capture());
+        invalidation = captor.getValue();
+    }
+
+    @Test
+    public void get_sameKeyTwice_readDelegateOnce() {
+        when(delegate.get(key)).thenReturn("value");
+
+        assertEquals("value", sut.get(key));
+        assertEquals("value", sut.get(key));
+
+        verify(delegate, times(1)).get(key);
+    }
+
+    @Test
+    public void get_missingKeyTwice_cacheAbsence() {
+        assertNull(sut.get(key));
+        assertFalse(sut.hasKey(key));
+
+        verify(delegate, times(1)).get(key);
+    }
+
+    @Test
+    public void get_manyKeys_fetchOnlyMisses() {
+        final String other = UUID.randomUUID().toString();
+        when(delegate.get(key)).thenReturn("value");
+        when(delegate.get(Collections.singletonList(other))).thenReturn(ImmutableMap.of(other, "other"));
+        sut.get(key);
+
+        assertEquals(ImmutableMap.of(key, "value", other, "other"), sut.get(Arrays.asList(key, other)));
+        assertEquals(ImmutableMap.of(key, "value", other, "other"), sut.get(Arrays.asList(key, other)));
+
+        verify(delegate, times(1)).get(Collections.singletonList(other));
+    }
+
+    @Test
+    public void put_publishInvalidationOfKey() {
+        sut.put(key, "value");
+
+        verify(delegate).put(key, "value");
+        verify(invalidationBus).publish(InvalidationBus.Kind.SERVICE_INSTANCE_METADATA, UUID.fromString(key));
+    }
+
+    @Test
+    public void invalidation_cachedKey_readDelegateAgain() {
+        when(delegate.get(key)).thenReturn("old", "new");
+        sut.get(key);
+
+        invalidation.accept(UUID.fromString(key));
+
+        assertEquals("new", sut.get(key));
+    }
+
+    @Test
+    public void invalidation_duringRead_doNotCacheValueRead() {
+        when(delegate.get(key)).thenAnswer(invocation -> {
+            invalidation.accept(UUID.fromString(key));
+            return "old";
+        }).thenReturn("new");
+
+        assertEquals("old", sut.get(key));
+        assertEquals("new", sut.get(key));
+    }
+
+    @Test
+    public void invalidation_duringBatchRead_doNotCacheValuesRead() {
+        when(delegate.get(Collections.singletonList(key))).thenAnswer(invocation -> {
+            invalidation.accept(null);
+            return ImmutableMap.of(key, "old");
+        }).thenReturn(ImmutableMap.of(key, "new"));
+
+        assertEquals(ImmutableMap.of(key, "old"), sut.get(Collections.singletonList(key)));
+        assertEquals(ImmutableMap.of(key, "new"), sut.get(Collections.singletonList(key)));
+    }
+
+    @Test
+    public void remove_publishInvalidationOfKey() {
+        sut.remove(key);
+
+        verify(delegate).remove(key);
+        verify(invalidationBus).publish(eq(InvalidationBus.Kind.SERVICE_INSTANCE_METADATA), any(UUID.class));
+    }
+}
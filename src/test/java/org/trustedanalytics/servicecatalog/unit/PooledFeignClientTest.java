@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.cf.PooledFeignClient;
+
+import com.google.common.collect.ImmutableMap;
+
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PooledFeignClientTest {
+
+    private static final String URL = "http://cc.example.com/v2/info";
+
+    private PooledFeignClient sut;
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Before
+    public void setUp() {
+        sut = new PooledFeignClient(httpClient);
+    }
+
+    @Test
+    public void execute_copyRequestSkippingLength() throws Exception {
+        when(httpClient.execute(any(HttpUriRequest.class)))
+            .thenReturn(new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_NO_CONTENT, "No Content"));
+        final Map<String, Collection<String>> headers = ImmutableMap.of(
+            "Authorization", Collections.singletonList("bearer token"),
+            "Content-Length", Collections.singletonList("4"));
+        final byte[] body = "body".getBytes(StandardCharsets.UTF_8);
+
+        sut.execute(Request.create("POST", URL, headers, body, StandardCharsets.UTF_8), new Request.Options(100, 200));
+
+        final ArgumentCaptor<HttpUriRequest> captor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(captor.capture());
+        final HttpUriRequest request = captor.getValue();
+        assertEquals("POST", request.getMethod());
+        assertEquals(URL, request.getURI().toString());
+        assertEquals("bearer token", request.getFirstHeader("Authorization").getValue());
+        assertNull(request.getFirstHeader("Content-Length"));
+        assertArrayEquals(body, EntityUtils.toByteArray(((HttpEntityEnclosingRequest) request).getEntity()));
+        assertEquals(200, ((Configurable) request).getConfig().getSocketTimeout());
+    }
+
+    @Test
+    public void execute_returnStatusHeadersAndBody() throws Exception {
+        final BasicHttpResponse httpResponse = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        httpResponse.addHeader("ETag", "\"v1\"");
+        httpResponse.setEntity(new StringEntity("{}", StandardCharsets.UTF_8));
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(httpResponse);
+
+        final Response response = sut.execute(
+            Request.create("GET", URL, Collections.emptyMap(), null, null), new Request.Options());
+
+        assertEquals(200, response.status());
+        assertEquals(Collections.singletonList("\"v1\""), response.headers().get("ETag"));
+        assertEquals("{}", Util.toString(response.body().asReader()));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.storage.RedisStore;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RedisStoreTest {
+
+    private static final String STORE_KEY = "store";
+
+    private RedisStore<String> sut;
+
+    @Mock
+    private RedisOperations<String, String> redisTemplate;
+
+    @Mock
+    private HashOperations<String, String, String> hashOps;
+
+    @Mock
+    private Cursor<Map.Entry<String, String>> cursor;
+
+    @Before
+    public void setUp() {
+        when(redisTemplate.<String, String>opsForHash()).thenReturn(hashOps);
+        sut = new RedisStore<>(redisTemplate, STORE_KEY);
+    }
+
+    @Test
+    public void get_manyKeys_fetchAllValuesWithSingleCommand() {
+        final List<String> keys = Arrays.asList("a", "b", "c");
+        when(hashOps.multiGet(STORE_KEY, keys)).thenReturn(Arrays.asList("1", null, "3"));
+
+        final Map<String, String> values = sut.get(keys);
+
+        assertEquals(ImmutableMap.of("a", "1", "c", "3"), values);
+        verify(hashOps, never()).get(anyString(), anyString());
+    }
+
+    @Test
+    public void get_noKeys_skipRedis() {
+        assertTrue(sut.get(Collections.<String>emptyList()).isEmpty());
+
+        verify(hashOps, never()).multiGet(anyString(), anyCollectionOf(String.class));
+    }
+
+    @Test
+    public void scan_iterateWithCursorAndCloseIt() throws Exception {
+        final Map<String, String> stored = ImmutableMap.of("a", "1", "b", "2");
+        final Iterator<Map.Entry<String, String>> entries = stored.entrySet().iterator();
+        when(hashOps.scan(eq(STORE_KEY), any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> entries.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> entries.next());
+
+        try (Stream<Map.Entry<String, String>> scanned = sut.scan(100)) {
+            assertEquals(stored, scanned.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+        }
+
+        verify(hashOps, never()).entries(anyString());
+        verify(cursor).close();
+    }
+}
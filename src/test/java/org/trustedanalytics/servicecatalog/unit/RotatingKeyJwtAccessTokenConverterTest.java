@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.security.RotatingKeyJwtAccessTokenConverter;
+import org.trustedanalytics.servicecatalog.security.VerifierKeyProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.MacSigner;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+
+import java.util.Optional;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RotatingKeyJwtAccessTokenConverterTest {
+
+    private JwtTokenStore tokenStore;
+
+    @Mock
+    private VerifierKeyProvider keyProvider;
+
+    @Before
+    public void setUp() {
+        tokenStore = new JwtTokenStore(new RotatingKeyJwtAccessTokenConverter(keyProvider));
+    }
+
+    @Test
+    public void decode_tokenSignedWithCurrentKey_verifyToken() {
+        when(keyProvider.getKey()).thenReturn(Optional.of("current"));
+
+        assertEquals(token("current"), tokenStore.readAccessToken(token("current")).getValue());
+    }
+
+    @Test
+    public void decode_keyRotated_verifyWithRefreshedKey() {
+        when(keyProvider.getKey()).thenReturn(Optional.of("old"), Optional.of("rotated"));
+        when(keyProvider.refreshNow()).thenReturn(true);
+
+        assertEquals(token("rotated"), tokenStore.readAccessToken(token("rotated")).getValue());
+    }
+
+    @Test(expected = InvalidTokenException.class)
+    public void decode_keyNotRotated_rejectToken() {
+        when(keyProvider.getKey()).thenReturn(Optional.of("current"));
+        when(keyProvider.refreshNow()).thenReturn(false);
+
+        tokenStore.readAccessToken(token("other"));
+    }
+
+    private String token(String key) {
+        return JwtHelper.encode("{\"user_name\":\"user\"}", new MacSigner(key)).getEncoded();
+    }
+}
@@ -27,6 +27,7 @@ import org.trustedanalytics.cloud.cc.api.CcOperations;
 import org.trustedanalytics.cloud.cc.api.CcServiceBinding;
 import org.trustedanalytics.cloud.cc.api.CcServiceBindingList;
 import org.trustedanalytics.servicecatalog.service.rest.ServiceBindingsController;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -45,9 +46,12 @@ public class ServiceBindingsControllerTest {
     @Mock
     private CcOperations ccClient;
 
+    @Mock
+    private InvalidationBus invalidationBus;
+
     @Before
     public void setUp() {
-        sut = new ServiceBindingsController(ccClient);
+        sut = new ServiceBindingsController(ccClient, invalidationBus);
     }
 
     @Test
@@ -78,6 +82,7 @@ public class ServiceBindingsControllerTest {
 
         verify(ccClient).createServiceBinding(captor.capture());
         assertEquals(returned, result);
+        verify(invalidationBus).publish(InvalidationBus.Kind.APP, app);
     }
 
     @Test
@@ -88,5 +93,6 @@ public class ServiceBindingsControllerTest {
         sut.deleteServiceBinding(bindingGuid);
 
         verify(ccClient).deleteServiceBinding(bindingGuid);
+        verify(invalidationBus).publish(InvalidationBus.Kind.SERVICE_BINDING, bindingGuid);
     }
 }
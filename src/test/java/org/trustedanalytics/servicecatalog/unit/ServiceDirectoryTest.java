@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.cloud.cc.api.CcExtendedService;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServiceEntity;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlan;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlanEntity;
+import org.trustedanalytics.cloud.cc.api.CcMetadata;
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcPlanVisibility;
+import org.trustedanalytics.cloud.cc.api.queries.FilterQuery;
+import org.trustedanalytics.servicecatalog.service.ServiceDirectory;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import rx.Observable;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceDirectoryTest {
+
+    private ServiceDirectory sut;
+
+    @Mock
+    private CcOperations privilegedClient;
+
+    private CcExtendedService service;
+
+    private CcExtendedServicePlan plan;
+
+    private final InvalidationBus invalidationBus = InvalidationBus.local();
+
+    private final Predicate<CcExtendedServicePlan> all = plan -> true;
+
+    @Before
+    public void setUp() {
+        service = createService("label");
+        plan = createServicePlan("plan", true);
+        when(privilegedClient.getExtendedServices()).thenReturn(Observable.just(service));
+        when(privilegedClient.getExtendedServicePlans(service.getMetadata().getGuid()))
+            .thenReturn(Observable.just(plan));
+        when(privilegedClient.getExtendedServicePlanVisibility(any(FilterQuery.class)))
+            .thenReturn(Observable.<CcPlanVisibility>empty());
+
+        sut = new ServiceDirectory(privilegedClient, invalidationBus, Runnable::run);
+    }
+
+    @Test
+    public void getPlan_existingLabelAndPlan_returnPlan() {
+        assertEquals(plan, sut.getPlan("label", "plan", all).get());
+        assertFalse(sut.getPlan("label", "other", all).isPresent());
+        assertFalse(sut.getPlan("other", "plan", all).isPresent());
+    }
+
+    @Test
+    public void getService_byLabel_returnService() {
+        assertEquals(service, sut.getService("label", all).get());
+        assertTrue(sut.getPlans(UUID.randomUUID(), all).isEmpty());
+    }
+
+    @Test
+    public void lookups_loadDirectoryOnlyOnce() {
+        sut.getService("label", all);
+        sut.getPlan("label", "plan", all);
+        sut.getServices(all);
+
+        verify(privilegedClient, times(1)).getExtendedServices();
+        verify(privilegedClient, times(1)).getExtendedServicePlans(any(UUID.class));
+    }
+
+    @Test
+    public void refresh_cloudControllerFails_keepPreviousSnapshot() {
+        sut.refresh();
+        when(privilegedClient.getExtendedServices()).thenReturn(Observable.error(new IllegalStateException()));
+
+        sut.refresh();
+
+        assertEquals(service, sut.getService("label", all).get());
+    }
+
+    @Test
+    public void offeringModified_reloadDirectory() {
+        sut.refresh();
+        CcExtendedService registered = createService("registered");
+        when(privilegedClient.getExtendedServices()).thenReturn(Observable.just(service, registered));
+        when(privilegedClient.getExtendedServicePlans(registered.getMetadata().getGuid()))
+            .thenReturn(Observable.just(createServicePlan("plan", true)));
+
+        invalidationBus.publish(InvalidationBus.Kind.SERVICE_OFFERING, registered.getMetadata().getGuid());
+
+        assertEquals(registered, sut.getService("registered", all).get());
+    }
+
+    @Test
+    public void catalogModified_reloadDirectory() {
+        sut.refresh();
+        when(privilegedClient.getExtendedServices()).thenReturn(Observable.empty());
+
+        invalidationBus.publish(InvalidationBus.Kind.CATALOG, null);
+
+        assertFalse(sut.getService("label", all).isPresent());
+    }
+
+    @Test
+    public void visibleIn_publicPlan_visibleInAnyOrg() {
+        Predicate<CcExtendedServicePlan> visible = sut.visibleIn(Collections.emptySet());
+
+        assertEquals(plan, sut.getPlan("label", "plan", visible).get());
+        assertEquals(1, sut.getServices(visible).size());
+    }
+
+    @Test
+    public void visibleIn_privatePlanOfAnotherOrg_hidePlanAndService() {
+        UUID org = UUID.randomUUID();
+        plan.getEntity().setPublicStatus(false);
+        CcPlanVisibility visibility = mock(CcPlanVisibility.class, RETURNS_DEEP_STUBS);
+        when(visibility.getEntity().getOrgGuid()).thenReturn(org);
+        when(privilegedClient.getExtendedServicePlanVisibility(any(FilterQuery.class)))
+            .thenReturn(Observable.just(visibility));
+
+        Predicate<CcExtendedServicePlan> outsider = sut.visibleIn(Collections.singleton(UUID.randomUUID()));
+        Predicate<CcExtendedServicePlan> member = sut.visibleIn(Collections.singleton(org));
+
+        assertFalse(sut.getPlan("label", "plan", outsider).isPresent());
+        assertFalse(sut.getService("label", outsider).isPresent());
+        assertTrue(sut.getServices(outsider).isEmpty());
+        assertTrue(sut.getPlans(service.getMetadata().getGuid(), outsider).isEmpty());
+        assertEquals(plan, sut.getPlan("label", "plan", member).get());
+    }
+
+    private CcExtendedService createService(String label) {
+        final CcExtendedServiceEntity entity = new CcExtendedServiceEntity();
+        entity.setLabel(label);
+
+        final CcMetadata metadata = new CcMetadata();
+        metadata.setGuid(UUID.randomUUID());
+
+        final CcExtendedService service = new CcExtendedService();
+        service.setEntity(entity);
+        service.setMetadata(metadata);
+        return service;
+    }
+
+    private CcExtendedServicePlan createServicePlan(String name, boolean publicStatus) {
+        final CcExtendedServicePlanEntity entity = new CcExtendedServicePlanEntity();
+        entity.setName(name);
+        entity.setPublicStatus(publicStatus);
+
+        final CcMetadata metadata = new CcMetadata();
+        metadata.setGuid(UUID.randomUUID());
+
+        final CcExtendedServicePlan plan = new CcExtendedServicePlan();
+        plan.setEntity(entity);
+        plan.setMetadata(metadata);
+        return plan;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+import org.trustedanalytics.servicecatalog.storage.CreatorIndex;
+import org.trustedanalytics.servicecatalog.storage.KeyValueStore;
+import org.trustedanalytics.servicecatalog.storage.ServiceInstanceRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceInstanceRegistryTest {
+
+    private ServiceInstanceRegistry sut;
+
+    @Mock
+    private KeyValueStore<ServiceInstanceMetadata> store;
+
+    @Mock
+    private CreatorIndex creatorIndex;
+
+    @Test
+    public void scanInstancesOfCreator_queryCreatorIndex() {
+        final UUID creator = UUID.randomUUID();
+        final UUID instance = UUID.randomUUID();
+        final ServiceInstanceMetadata metadata = new ServiceInstanceMetadata(creator, "test-user");
+        when(creatorIndex.scanByCreator(creator.toString(), 10)).thenReturn(
+            Stream.<Map.Entry<String, ServiceInstanceMetadata>>of(
+                new AbstractMap.SimpleImmutableEntry<>(instance.toString(), metadata)));
+        sut = new ServiceInstanceRegistry(store, creatorIndex);
+
+        final Map<UUID, ServiceInstanceMetadata> instances = sut.scanInstancesOfCreator(creator, 10)
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        assertEquals(Collections.singletonMap(instance, metadata), instances);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void scanInstancesOfCreator_noCreatorIndex_throwUnsupported() {
+        sut = new ServiceInstanceRegistry(store);
+
+        sut.scanInstancesOfCreator(UUID.randomUUID(), 10);
+    }
+}
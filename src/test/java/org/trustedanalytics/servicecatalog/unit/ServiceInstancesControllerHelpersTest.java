@@ -17,6 +17,10 @@ package org.trustedanalytics.servicecatalog.unit;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,11 +29,17 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlan;
 import org.trustedanalytics.cloud.cc.api.CcOperations;
 import org.trustedanalytics.cloud.cc.api.CcService;
 import org.trustedanalytics.cloud.cc.api.CcServiceInstance;
+import org.trustedanalytics.cloud.cc.api.CcServiceKey;
 import org.trustedanalytics.cloud.cc.api.CcServicePlan;
 import org.trustedanalytics.cloud.cc.api.CcSummary;
+import org.trustedanalytics.servicecatalog.cf.CcServiceKeysPage;
+import org.trustedanalytics.servicecatalog.cf.ServiceKeysOperations;
+import org.trustedanalytics.servicecatalog.service.ServiceDirectory;
+import org.trustedanalytics.servicecatalog.service.ServicePlanAccess;
 import org.trustedanalytics.servicecatalog.service.model.Service;
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstance;
 import org.trustedanalytics.servicecatalog.service.model.ServiceKey;
@@ -37,8 +47,10 @@ import org.trustedanalytics.servicecatalog.service.rest.ServiceInstancesControll
 import rx.Observable;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ServiceInstancesControllerHelpersTest {
@@ -48,9 +60,19 @@ public class ServiceInstancesControllerHelpersTest {
     @Mock
     private CcOperations ccClient;
 
+    @Mock
+    private ServiceKeysOperations ccServiceKeysClient;
+
+    @Mock
+    private ServiceDirectory serviceDirectory;
+
+    @Mock
+    private ServicePlanAccess servicePlanAccess;
+
     @Before
     public void setUp() {
-        sut = new ServiceInstancesControllerHelpers(ccClient);
+        sut = new ServiceInstancesControllerHelpers(ccClient, ccServiceKeysClient, serviceDirectory,
+            servicePlanAccess);
     }
 
     @Test
@@ -71,6 +93,85 @@ public class ServiceInstancesControllerHelpersTest {
         assertEquals(0, instances.get(2).getServiceKeys().size());
     }
 
+    @Test
+    public void mergeServiceKeys_keysOfOtherInstances_ignoreThem() {
+        List<ServiceInstance> instances = Collections.singletonList(getServiceInstance(UUID.randomUUID(), null));
+
+        sut.mergeServiceKeys(instances, Observable.just(getServiceKey(UUID.randomUUID())));
+
+        assertEquals(0, instances.get(0).getServiceKeys().size());
+    }
+
+    @Test
+    public void fetchServices_resolveVisibilityBeforeSubscription() {
+        Predicate<CcExtendedServicePlan> visible = plan -> true;
+        when(servicePlanAccess.visibleToCurrentUser()).thenReturn(visible);
+        when(serviceDirectory.getServices(visible)).thenReturn(Collections.emptyList());
+
+        Observable<List<Service>> services = sut.fetchServices();
+        verify(servicePlanAccess).visibleToCurrentUser();
+        verify(serviceDirectory, never()).getServices(any());
+
+        assertEquals(0, services.toBlocking().single().size());
+        verify(serviceDirectory).getServices(visible);
+    }
+
+    @Test
+    public void getServiceKeys_queryOnlyGivenInstances() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        CcServiceKeysPage firstPage = getServiceKeysPage(2, getCcServiceKey(first));
+        CcServiceKeysPage secondPage = getServiceKeysPage(2, getCcServiceKey(first));
+        CcServiceKeysPage onlyPage = getServiceKeysPage(1, getCcServiceKey(second));
+        when(ccServiceKeysClient.getServiceKeys(first, 1, ServiceKeysOperations.MAX_PAGE_SIZE)).thenReturn(firstPage);
+        when(ccServiceKeysClient.getServiceKeys(first, 2, ServiceKeysOperations.MAX_PAGE_SIZE)).thenReturn(secondPage);
+        when(ccServiceKeysClient.getServiceKeys(second, 1, ServiceKeysOperations.MAX_PAGE_SIZE)).thenReturn(onlyPage);
+
+        List<ServiceKey> result = sut.getServiceKeys(Arrays.asList(first, second))
+            .toList().toBlocking().single();
+
+        assertEquals(3, result.size());
+        verify(ccServiceKeysClient, never()).getServiceKeys(second, 2, ServiceKeysOperations.MAX_PAGE_SIZE);
+        verify(ccClient, never()).getServiceKeys();
+    }
+
+    @Test
+    public void getServiceKeys_noInstances_skipCloudController() {
+        List<ServiceKey> result = sut.getServiceKeys(Collections.emptyList()).toList().toBlocking().single();
+
+        assertEquals(0, result.size());
+        verify(ccServiceKeysClient, never()).getServiceKeys(any(UUID.class), anyInt(), anyInt());
+    }
+
+    @Test
+    public void fetchServiceInstances_fetchKeys_mergeKeysOfSpaceInstances() {
+        UUID instanceGuid = UUID.randomUUID();
+        CcSummary summary = new CcSummary();
+        summary.setServiceInstances(Collections.singletonList(getCcServiceInstance(instanceGuid, UUID.randomUUID())));
+        when(ccClient.getSpaceSummary(any(UUID.class))).thenReturn(summary);
+        CcServiceKeysPage page = getServiceKeysPage(1, getCcServiceKey(instanceGuid));
+        when(ccServiceKeysClient.getServiceKeys(instanceGuid, 1, ServiceKeysOperations.MAX_PAGE_SIZE))
+            .thenReturn(page);
+
+        List<ServiceInstance> result = sut.fetchServiceInstances(UUID.randomUUID(), true).toBlocking().single();
+
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).getServiceKeys().size());
+    }
+
+    @Test
+    public void fetchServiceInstances_skipKeys_doNotQueryKeys() {
+        CcSummary summary = new CcSummary();
+        summary.setServiceInstances(Collections.singletonList(
+            getCcServiceInstance(UUID.randomUUID(), UUID.randomUUID())));
+        when(ccClient.getSpaceSummary(any(UUID.class))).thenReturn(summary);
+
+        List<ServiceInstance> result = sut.fetchServiceInstances(UUID.randomUUID(), false).toBlocking().single();
+
+        assertEquals(1, result.size());
+        verify(ccServiceKeysClient, never()).getServiceKeys(any(UUID.class), anyInt(), anyInt());
+    }
+
     @Test
     public void mergeInstances_returnCorrectStructure() {
         List<UUID> uuids = Arrays.asList(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
@@ -138,6 +239,20 @@ public class ServiceInstancesControllerHelpersTest {
         return key;
     }
 
+    private CcServiceKeysPage getServiceKeysPage(int totalPages, CcServiceKey... keys) {
+        CcServiceKeysPage page = new CcServiceKeysPage();
+        page.setTotalPages(totalPages);
+        page.setResources(Arrays.asList(keys));
+        return page;
+    }
+
+    private CcServiceKey getCcServiceKey(UUID instanceGuid) {
+        CcServiceKey key = mock(CcServiceKey.class, RETURNS_DEEP_STUBS);
+        when(key.getMetadata().getGuid()).thenReturn(UUID.randomUUID());
+        when(key.getEntity().getServiceInstanceGuid()).thenReturn(instanceGuid);
+        return key;
+    }
+
     private Service getService(UUID uuid) {
         Service service = new Service();
         service.setGuid(uuid);
@@ -17,33 +17,46 @@ package org.trustedanalytics.servicecatalog.unit;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.*;
 import static org.trustedanalytics.servicecatalog.unit.ServiceInstancesTestHelpers.getServiceInstances;
-import static org.trustedanalytics.servicecatalog.unit.ServiceInstancesTestHelpers.getServiceKeys;
 import static org.trustedanalytics.servicecatalog.unit.ServiceInstancesTestHelpers.getServices;
+import static org.trustedanalytics.servicecatalog.utils.DeferredResultsTestsResources.getResult;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.security.core.Authentication;
 import org.trustedanalytics.cloud.cc.api.*;
 import org.trustedanalytics.cloud.uaa.UserIdNamePair;
+import org.trustedanalytics.servicecatalog.cf.SpaceSummaryCache;
 import org.trustedanalytics.servicecatalog.service.model.Service;
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstance;
 import org.trustedanalytics.servicecatalog.service.model.ServiceInstanceMetadata;
+import org.trustedanalytics.servicecatalog.service.model.Summary;
+import org.trustedanalytics.servicecatalog.service.rest.CloudControllerTimeoutException;
+import org.trustedanalytics.servicecatalog.service.rest.DeferredResults;
 import org.trustedanalytics.servicecatalog.service.rest.ServiceInstancesController;
 import org.trustedanalytics.servicecatalog.service.rest.ServiceInstancesControllerHelpers;
+import org.trustedanalytics.servicecatalog.storage.AsyncServiceInstanceRegistry;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 import org.trustedanalytics.servicecatalog.storage.ServiceInstanceRegistry;
 import org.trustedanalytics.servicecatalog.utils.ServiceInstancesTestsResources;
 import rx.Observable;
+import rx.schedulers.Schedulers;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -51,6 +64,7 @@ public class ServiceInstancesControllerTest {
 
     private static final String SPACE_GUID_STR = "AC5E9498-526B-4ED7-93BC-D2D7412BCCA5";
     private static final UUID SPACE_GUID = UUID.fromString(SPACE_GUID_STR);
+    private static final long SUMMARY_TIMEOUT = 5000;
 
     private CcSummary spaceSummaryReturnedByCcAdapter;
     private ServiceInstancesController sut;
@@ -64,19 +78,30 @@ public class ServiceInstancesControllerTest {
     @Mock
     private ServiceInstanceRegistry serviceInstanceRegistry;
 
+    @Mock
+    private AsyncServiceInstanceRegistry asyncServiceInstanceRegistry;
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    @Mock
+    private SpaceSummaryCache spaceSummaryCache;
+
     @Before
     public void setUp() {
         spaceSummaryReturnedByCcAdapter =
             ServiceInstancesTestsResources.spaceSummaryReturnedByCcAdapter();
         when(ccClient.getSpaceSummary(any(UUID.class))).thenReturn(spaceSummaryReturnedByCcAdapter);
-        sut = new ServiceInstancesController(ccClient, controllerHelpers, serviceInstanceRegistry);
+        sut = new ServiceInstancesController(ccClient, controllerHelpers, serviceInstanceRegistry,
+            asyncServiceInstanceRegistry, new DeferredResults(Schedulers.immediate()), invalidationBus,
+            spaceSummaryCache, SUMMARY_TIMEOUT);
     }
 
     @Test
     public void getAllServiceInstances_withoutServiceFilter_returnAllServiceInstancesFromCloudfoundry() {
         UUID service = null;
         ServiceInstanceMetadata metadata = new ServiceInstanceMetadata(UUID.randomUUID(), "test-user");
-        when(serviceInstanceRegistry.getInstanceCreator(any(UUID.class))).thenReturn(metadata);
+        mockInstanceCreators(metadata);
 
         Collection<ServiceInstance> allNotFilteredServiceInstances =
             ServiceInstancesTestsResources.allNotFilteredServiceInstances();
@@ -96,16 +121,45 @@ public class ServiceInstancesControllerTest {
     @Test
     public void getAllServiceInstances_getInstancesCreatorsFromStore() {
         ServiceInstanceMetadata metadata = new ServiceInstanceMetadata(UUID.randomUUID(), "test-user");
-        when(serviceInstanceRegistry.getInstanceCreator(any(UUID.class))).thenReturn(metadata);
+        mockInstanceCreators(metadata);
 
         Collection<ServiceInstance> serviceInstances =
                 sut.getAllServiceInstances(SPACE_GUID, null);
 
-        verify(serviceInstanceRegistry, times(serviceInstances.size())).getInstanceCreator(any(UUID.class));
+        verify(serviceInstanceRegistry).getInstanceCreators(anyCollectionOf(UUID.class));
+        verify(serviceInstanceRegistry, never()).getInstanceCreator(any(UUID.class));
         serviceInstances.stream().allMatch(i -> i.getMetadata().getCreatorName() != null);
         serviceInstances.stream().allMatch(i -> i.getMetadata().getCreatorUUID() != null);
     }
 
+    @Test
+    public void getExtendedSpaceSummary_getInstancesCreatorsFromStoreAtOnce() {
+        ServiceInstanceMetadata metadata = new ServiceInstanceMetadata(UUID.randomUUID(), "test-user");
+        mockInstanceCreators(metadata);
+        when(controllerHelpers.getServiceInstances(any(UUID.class)))
+            .thenReturn(ServiceInstancesTestsResources.allNotFilteredServiceInstances().stream()
+                .collect(Collectors.toList()));
+
+        Summary summary = sut.getExtendedSpaceSummary(SPACE_GUID);
+
+        verify(asyncServiceInstanceRegistry).getInstanceCreators(anyCollectionOf(UUID.class));
+        Assert.assertTrue(summary.getServiceInstancesWithMetadata().stream()
+            .allMatch(i -> metadata.equals(i.getMetadata())));
+        Assert.assertEquals(spaceSummaryReturnedByCcAdapter.getApps(), summary.getApps());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getExtendedSpaceSummary_storeFailed_rethrowCause() {
+        CompletableFuture<Map<UUID, ServiceInstanceMetadata>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException());
+        when(asyncServiceInstanceRegistry.getInstanceCreators(anyCollectionOf(UUID.class))).thenReturn(failed);
+        when(controllerHelpers.getServiceInstances(any(UUID.class)))
+            .thenReturn(ServiceInstancesTestsResources.allNotFilteredServiceInstances().stream()
+                .collect(Collectors.toList()));
+
+        sut.getExtendedSpaceSummary(SPACE_GUID);
+    }
+
     @Test
     public void createServiceInstance_createInstanceAndReturnIt() {
         ArgumentCaptor<CcNewServiceInstance> captor = ArgumentCaptor.forClass(
@@ -149,6 +203,25 @@ public class ServiceInstancesControllerTest {
 
         verify(serviceInstanceRegistry).addInstanceCreator(instanceUUID,
                 new ServiceInstanceMetadata(creator.getGuid(), creator.getUserName()));
+        verify(invalidationBus).publish(InvalidationBus.Kind.SPACE, passed.getSpaceGuid());
+    }
+
+    @Test
+    public void createServiceInstance_evictCachedSummaryBeforeNameCheck() {
+        UUID spaceGuid = UUID.randomUUID();
+        CcNewServiceInstance passed = new CcNewServiceInstance("test-instance", UUID.randomUUID(), spaceGuid,
+                UUID.randomUUID());
+        CcExtendedServiceInstance returned = new CcExtendedServiceInstance();
+        CcMetadata returnedMetadata = new CcMetadata();
+        returnedMetadata.setGuid(UUID.randomUUID());
+        returned.setMetadata(returnedMetadata);
+        when(ccClient.createServiceInstance(any(CcNewServiceInstance.class))).thenReturn(Observable.just(returned));
+
+        sut.createServiceInstance(passed, null);
+
+        InOrder inOrder = inOrder(spaceSummaryCache, ccClient);
+        inOrder.verify(spaceSummaryCache).evictSpace(spaceGuid);
+        inOrder.verify(ccClient).getSpaceSummary(spaceGuid);
     }
 
     @Test
@@ -172,36 +245,64 @@ public class ServiceInstancesControllerTest {
     }
 
     @Test
-    public void getServiceInstancesSummary_fetchKeysFalse_getSummaryWithoutKeys() {
-        when(controllerHelpers.getServiceKeys()).thenReturn(getServiceKeys(3));
+    public void deleteServiceInstance_publishInstanceInvalidation() {
+        UUID serviceGuid = UUID.randomUUID();
+
+        sut.deleteServiceInstance(serviceGuid);
+
+        verify(invalidationBus).publish(InvalidationBus.Kind.SERVICE_INSTANCE, serviceGuid);
+    }
+
+    @Test
+    public void getServiceInstancesSummary_fetchKeysFalse_getSummaryWithoutKeys() throws Exception {
         List<ServiceInstance> instances = getServiceInstances();
-        when(controllerHelpers.getServiceInstances(any(UUID.class))).thenReturn(instances);
+        when(controllerHelpers.fetchServiceInstances(any(UUID.class), anyBoolean()))
+            .thenReturn(Observable.just(instances));
         List<Service> services = getServices();
-        when(controllerHelpers.getServices()).thenReturn(services);
+        when(controllerHelpers.fetchServices()).thenReturn(Observable.just(services));
         UUID spaceId = UUID.randomUUID();
 
-        Collection<Service> result = sut.getServiceKeysSummary(spaceId, false);
+        Collection<Service> result = getResult(sut.getServiceKeysSummary(spaceId, false));
 
-        verify(controllerHelpers, never()).getServiceKeys();
-        verify(controllerHelpers).getServices();
-        verify(controllerHelpers).getServiceInstances(spaceId);
+        verify(controllerHelpers).fetchServiceInstances(spaceId, false);
+        verify(controllerHelpers).fetchServices();
         Assert.assertEquals(2, result.size());
     }
 
     @Test
-    public void getServiceInstancesSummary_fetchKeysTrue_getSummaryWithKeys() {
-        when(controllerHelpers.getServiceKeys()).thenReturn(getServiceKeys(3));
+    public void getServiceInstancesSummary_fetchKeysTrue_getSummaryWithKeys() throws Exception {
         List<ServiceInstance> instances = getServiceInstances();
-        when(controllerHelpers.getServiceInstances(any(UUID.class))).thenReturn(instances);
+        when(controllerHelpers.fetchServiceInstances(any(UUID.class), anyBoolean()))
+            .thenReturn(Observable.just(instances));
         List<Service> services = getServices();
-        when(controllerHelpers.getServices()).thenReturn(services);
+        when(controllerHelpers.fetchServices()).thenReturn(Observable.just(services));
         UUID spaceId = UUID.randomUUID();
 
-        Collection<Service> result = sut.getServiceKeysSummary(spaceId, true);
+        Collection<Service> result = getResult(sut.getServiceKeysSummary(spaceId, true));
 
-        verify(controllerHelpers).getServiceKeys();
-        verify(controllerHelpers).getServices();
-        verify(controllerHelpers).getServiceInstances(spaceId);
+        verify(controllerHelpers).fetchServiceInstances(spaceId, true);
+        verify(controllerHelpers).fetchServices();
         Assert.assertEquals(2, result.size());
     }
+
+    @Test(expected = CloudControllerTimeoutException.class)
+    public void getServiceInstancesSummary_cloudControllerNotResponding_failAfterTimeout() throws Exception {
+        sut = new ServiceInstancesController(ccClient, controllerHelpers, serviceInstanceRegistry,
+            asyncServiceInstanceRegistry, new DeferredResults(Schedulers.immediate()), invalidationBus,
+            spaceSummaryCache, 10);
+        when(controllerHelpers.fetchServiceInstances(any(UUID.class), anyBoolean())).thenReturn(Observable.never());
+        when(controllerHelpers.fetchServices()).thenReturn(Observable.just(getServices()));
+
+        getResult(sut.getServiceKeysSummary(UUID.randomUUID(), true));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockInstanceCreators(ServiceInstanceMetadata metadata) {
+        when(serviceInstanceRegistry.getInstanceCreators(anyCollectionOf(UUID.class))).thenAnswer(invocation ->
+            ((Collection<UUID>) invocation.getArguments()[0]).stream()
+                .collect(Collectors.toMap(Function.identity(), guid -> metadata)));
+        when(asyncServiceInstanceRegistry.getInstanceCreators(anyCollectionOf(UUID.class))).thenAnswer(invocation ->
+            CompletableFuture.completedFuture(((Collection<UUID>) invocation.getArguments()[0]).stream()
+                .collect(Collectors.toMap(Function.identity(), guid -> metadata))));
+    }
 }
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlan;
+import org.trustedanalytics.cloud.cc.api.CcExtendedServicePlanEntity;
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcPlanVisibility;
+import org.trustedanalytics.cloud.cc.api.queries.FilterQuery;
+import org.trustedanalytics.servicecatalog.service.ServiceOfferingVisibility;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import rx.Observable;
+
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ServiceOfferingVisibilityTest {
+
+    private ServiceOfferingVisibility sut;
+
+    @Mock
+    private CcOperations privilegedClient;
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    private final UUID service = UUID.randomUUID();
+
+    @Before
+    public void setUp() {
+        when(privilegedClient.getExtendedServicePlanVisibility(any(FilterQuery.class)))
+            .thenReturn(Observable.<CcPlanVisibility>empty());
+        sut = new ServiceOfferingVisibility(privilegedClient, 30, 100, invalidationBus);
+    }
+
+    @Test
+    public void isShared_publicPlan_returnTrue() {
+        when(privilegedClient.getExtendedServicePlans(service)).thenReturn(Observable.just(createPlan(true)));
+
+        assertTrue(sut.isShared(service));
+    }
+
+    @Test
+    public void isShared_privatePlanInSingleOrg_returnFalse() {
+        when(privilegedClient.getExtendedServicePlans(service)).thenReturn(Observable.just(createPlan(false)));
+
+        assertFalse(sut.isShared(service));
+    }
+
+    @Test
+    public void isShared_calledTwice_queryCloudControllerOnce() {
+        when(privilegedClient.getExtendedServicePlans(service)).thenReturn(Observable.just(createPlan(false)));
+
+        sut.isShared(service);
+        sut.isShared(service);
+
+        verify(privilegedClient, times(1)).getExtendedServicePlans(service);
+        verify(privilegedClient, times(1)).getExtendedServicePlanVisibility(any(FilterQuery.class));
+    }
+
+    @Test
+    public void isShared_afterInvalidate_queryCloudControllerAgain() {
+        when(privilegedClient.getExtendedServicePlans(service)).thenReturn(Observable.just(createPlan(false)));
+
+        sut.isShared(service);
+        sut.invalidate(service);
+        sut.isShared(service);
+
+        verify(privilegedClient, times(2)).getExtendedServicePlans(service);
+    }
+
+    private CcExtendedServicePlan createPlan(boolean publicStatus) {
+        final CcExtendedServicePlanEntity entity = new CcExtendedServicePlanEntity();
+        entity.setPublicStatus(publicStatus);
+
+        final CcExtendedServicePlan plan = new CcExtendedServicePlan();
+        plan.setEntity(entity);
+        return plan;
+    }
+}
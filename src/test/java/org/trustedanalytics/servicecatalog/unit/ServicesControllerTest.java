@@ -16,22 +16,34 @@
 package org.trustedanalytics.servicecatalog.unit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.trustedanalytics.servicecatalog.utils.DeferredResultsTestsResources.getResult;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import org.trustedanalytics.cloud.cc.api.*;
-import org.trustedanalytics.servicecatalog.service.CatalogOperations;
+import org.trustedanalytics.cloud.cc.api.queries.FilterQuery;
+import org.trustedanalytics.servicecatalog.service.CachingCatalogOperations;
+import org.trustedanalytics.servicecatalog.service.CatalogSnapshot;
+import org.trustedanalytics.servicecatalog.service.ServiceDirectory;
+import org.trustedanalytics.servicecatalog.service.ServiceOfferingVisibility;
+import org.trustedanalytics.servicecatalog.service.ServicePlanAccess;
 import org.trustedanalytics.servicecatalog.service.model.ServiceBroker;
 import org.trustedanalytics.servicecatalog.service.model.ServiceDetails;
+import org.trustedanalytics.servicecatalog.service.rest.DeferredResults;
 import org.trustedanalytics.servicecatalog.service.rest.ServicesController;
+import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationApp;
 import org.trustedanalytics.servicecatalog.service.model.ServiceRegistrationRequest;
+import org.trustedanalytics.servicecatalog.storage.InvalidationBus;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -43,6 +55,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import rx.Observable;
+import rx.schedulers.Schedulers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -63,11 +76,23 @@ public class ServicesControllerTest {
     private CcOperations privilegedClient;
 
     @Mock
-    private CatalogOperations catalogClient;
+    private CachingCatalogOperations catalogClient;
+
+    @Mock
+    private InvalidationBus invalidationBus;
+
+    @Mock
+    private ServicePlanAccess servicePlanAccess;
 
     @Before
     public void setUp() {
-        sut = new ServicesController(ccClient, privilegedClient, catalogClient);
+        when(servicePlanAccess.visibleToCurrentUser()).thenReturn(plan -> true);
+        when(privilegedClient.getExtendedServicePlanVisibility(any(FilterQuery.class)))
+            .thenReturn(Observable.<CcPlanVisibility>empty());
+        sut = new ServicesController(ccClient, privilegedClient, catalogClient,
+            new ServiceDirectory(privilegedClient, invalidationBus, Runnable::run), servicePlanAccess,
+            new ServiceOfferingVisibility(privilegedClient, 30, 100, invalidationBus),
+            new DeferredResults(Schedulers.immediate()), invalidationBus);
     }
 
     @Test
@@ -96,8 +121,8 @@ public class ServicesControllerTest {
         extendedServicePlan.getMetadata().setGuid(guid);
         expectedExtendedServicePlan.add(extendedServicePlan);
 
-        when(ccClient.getExtendedServices()).thenReturn(Observable.from(expectedExtendedServices));
-        when(ccClient.getExtendedServicePlans(any()))
+        when(privilegedClient.getExtendedServices()).thenReturn(Observable.from(expectedExtendedServices));
+        when(privilegedClient.getExtendedServicePlans(any()))
             .thenReturn(Observable.from(expectedExtendedServicePlan));
 
         JSONObject json = new JSONObject(sut.getPlanGuid("label", "plan"));
@@ -106,13 +131,13 @@ public class ServicesControllerTest {
     }
 
     @Test
-    public void getServices_spaceSpecified_returnServicesFromCloudfoundry() {
+    public void getServices_spaceSpecified_returnServicesFromCloudfoundry() throws Exception {
         UUID spaceId = UUID.fromString("8efd7c5c-d83c-4786-b399-b7bd548839e1");
         List<CcExtendedService> expectedServices =
             Arrays.asList(new CcExtendedService(), new CcExtendedService());
         when(ccClient.getServices(any(UUID.class))).thenReturn(Observable.from(expectedServices));
 
-        Collection<CcExtendedService> services = sut.getServices(spaceId);
+        Collection<CcExtendedService> services = getResult(sut.getServices(spaceId));
 
         assertEquals(expectedServices, services);
 
@@ -123,10 +148,11 @@ public class ServicesControllerTest {
     public void getService_returnServiceFromCloudfoundry() {
         UUID serviceId = UUID.fromString("8efd7c5c-d83c-4786-b399-b7bd548839e2");
         CcExtendedService expectedService = new CcExtendedService();
+        expectedService.setEntity(new CcExtendedServiceEntity());
         when(ccClient.getService(any(UUID.class))).thenReturn(Observable.just(expectedService));
         ServiceBroker catalog = new ServiceBroker();
         catalog.setServices(new LinkedList<ServiceRegistrationRequest>(){ });
-        when(catalogClient.getCatalog()).thenReturn(catalog);
+        when(catalogClient.getSnapshot()).thenReturn(CatalogSnapshot.of(catalog));
         ServiceDetails result = new ServiceDetails();
         result.setService(expectedService);
         result.setDeletable(false);
@@ -152,10 +178,10 @@ public class ServicesControllerTest {
             ImmutableList.of(expectedService, notExpectedService);
 
         // when
-        when(ccClient.getExtendedServices()).thenReturn(Observable.from(services));
-        when(ccClient.getExtendedServicePlans(expectedService.getMetadata().getGuid()))
+        when(privilegedClient.getExtendedServices()).thenReturn(Observable.from(services));
+        when(privilegedClient.getExtendedServicePlans(expectedService.getMetadata().getGuid()))
             .thenReturn(Observable.just(expectedServicePlan));
-        when(ccClient.getExtendedServicePlans(notExpectedService.getMetadata().getGuid()))
+        when(privilegedClient.getExtendedServicePlans(notExpectedService.getMetadata().getGuid()))
             .thenReturn(Observable.just(notExpectedServicePlan));
 
         // then
@@ -164,6 +190,47 @@ public class ServicesControllerTest {
         assertThat(Iterables.getOnlyElement(plans).getEntity().getName(), is(expectedLabel));
     }
 
+    @Test
+    public void getServicePlans_planNotVisibleToUser_returnNoPlans() {
+        final CcExtendedService service = createService("label");
+        when(privilegedClient.getExtendedServices()).thenReturn(Observable.just(service));
+        when(privilegedClient.getExtendedServicePlans(service.getMetadata().getGuid()))
+            .thenReturn(Observable.just(createServicePlan("plan", service.getMetadata().getGuid())));
+        when(servicePlanAccess.visibleToCurrentUser()).thenReturn(plan -> false);
+
+        assertThat(sut.getServicePlans("label"), is(empty()));
+        assertNull(sut.getPlanGuid("label", "plan").getGuid());
+    }
+
+    @Test
+    public void getClonedApplications_queryOnlyServicesRegisteredFromApp() throws Exception {
+        final UUID app = UUID.randomUUID();
+        final ServiceBroker catalog = new ServiceBroker();
+        catalog.setServices(ImmutableList.of(
+            createCatalogItem("first", app), createCatalogItem("other", UUID.randomUUID()),
+            createCatalogItem("second", app)));
+        when(catalogClient.getSnapshot()).thenReturn(CatalogSnapshot.of(catalog));
+        when(ccClient.getExtendedServices(any(FilterQuery.class)))
+            .thenReturn(Observable.just(createService("first")))
+            .thenReturn(Observable.just(createService("second")));
+
+        final Collection<CcExtendedService> clones = getResult(sut.getClonedApplications(app));
+
+        assertThat(clones, hasSize(2));
+        verify(ccClient, times(2)).getExtendedServices(any(FilterQuery.class));
+    }
+
+    private ServiceRegistrationRequest createCatalogItem(String name, UUID app) {
+        final CcMetadata metadata = new CcMetadata();
+        metadata.setGuid(app);
+
+        final ServiceRegistrationRequest item = new ServiceRegistrationRequest();
+        item.setId(UUID.randomUUID());
+        item.setName(name);
+        item.setApp(new ServiceRegistrationApp(metadata));
+        return item;
+    }
+
     private CcExtendedService createService(String label) {
         final CcExtendedServiceEntity entity = new CcExtendedServiceEntity();
         entity.setLabel(label);
@@ -247,5 +314,7 @@ public class ServicesControllerTest {
         CcExtendedService plans = sut.registerApplication(request);
 
         assertEquals(plans, extendedService);
+        verify(invalidationBus).publish(InvalidationBus.Kind.CATALOG, null);
+        verify(invalidationBus).publish(InvalidationBus.Kind.SERVICE_OFFERING, extendedService.getMetadata().getGuid());
     }
 }
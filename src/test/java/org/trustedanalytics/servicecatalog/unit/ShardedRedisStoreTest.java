@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.storage.ClusterLock;
+import org.trustedanalytics.servicecatalog.storage.ShardedRedisStore;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ShardedRedisStoreTest {
+
+    private static final String STORE_KEY = "store";
+    private static final String LEGACY_KEY = "legacy";
+
+    private ShardedRedisStore<String> sut;
+
+    @Mock
+    private RedisOperations<String, String> redisTemplate;
+
+    @Mock
+    private HashOperations<String, String, String> hashOps;
+
+    @Mock
+    private Cursor<Map.Entry<String, String>> cursor;
+
+    @Before
+    public void setUp() {
+        when(redisTemplate.<String, String>opsForHash()).thenReturn(hashOps);
+        doReturn(new StringRedisSerializer()).when(redisTemplate).getHashValueSerializer();
+        sut = new ShardedRedisStore<>(redisTemplate, STORE_KEY, 16, LEGACY_KEY, 100, ClusterLock.local());
+    }
+
+    @Test
+    public void put_storeInBucketOfKey() {
+        final ArgumentCaptor<String> bucket = ArgumentCaptor.forClass(String.class);
+
+        sut.put("a", "1");
+
+        verify(hashOps).put(bucket.capture(), eq("a"), eq("1"));
+        assertNotEquals(LEGACY_KEY, bucket.getValue());
+        assertEquals(0, bucket.getValue().indexOf(STORE_KEY + ":"));
+    }
+
+    @Test
+    public void get_notMigratedYet_fallBackToLegacyHash() {
+        when(hashOps.get(LEGACY_KEY, "a")).thenReturn("1");
+
+        assertEquals("1", sut.get("a"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void migrate_moveEntriesAndStopReadingLegacyHash() throws Exception {
+        scanLegacy(ImmutableMap.of("a", "1", "b", "2"));
+        when(redisTemplate.hasKey(LEGACY_KEY)).thenReturn(true, false);
+        answerScripts(Collections.emptyList());
+
+        assertEquals(2, sut.migrate());
+        sut.get("c");
+
+        verify(redisTemplate, atLeast(2)).execute(any(RedisScript.class), any(RedisSerializer.class),
+            any(RedisSerializer.class), anyListOf(String.class), anyVararg());
+        verify(cursor).close();
+        verify(hashOps, never()).get(LEGACY_KEY, "c");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void migrate_touchSingleKeyPerScriptCall() throws Exception {
+        final ArgumentCaptor<List> keys = ArgumentCaptor.forClass(List.class);
+        scanLegacy(ImmutableMap.of("a", "1", "b", "2", "c", "3", "d", "4"));
+        when(redisTemplate.hasKey(LEGACY_KEY)).thenReturn(true);
+        answerScripts(Collections.emptyList());
+
+        sut.migrate();
+
+        verify(redisTemplate, atLeast(2)).execute(any(RedisScript.class), any(RedisSerializer.class),
+            any(RedisSerializer.class), keys.capture(), anyVararg());
+        Set<String> buckets = Stream.of("a", "b", "c", "d").map(this::bucketOf).collect(Collectors.toSet());
+        List<String> touched = new ArrayList<>();
+        for (List<String> called : (List<List<String>>) (List) keys.getAllValues()) {
+            assertEquals(1, called.size());
+            touched.add(called.get(0));
+        }
+        assertEquals(1, Collections.frequency(touched, LEGACY_KEY));
+        touched.remove(LEGACY_KEY);
+        assertEquals(buckets.size(), touched.size());
+        assertEquals(buckets, new HashSet<>(touched));
+    }
+
+    @Test
+    public void migrate_entryRemovedMeanwhile_deleteItFromBucket() throws Exception {
+        scanLegacy(ImmutableMap.of("a", "1"));
+        when(redisTemplate.hasKey(LEGACY_KEY)).thenReturn(true);
+        answerScripts(Collections.singletonList("a"));
+
+        assertEquals(0, sut.migrate());
+
+        final String bucket = bucketOf("a");
+        verify(hashOps).delete(bucket, "a");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void migrate_otherNodeMigrating_skipAndKeepReadingLegacyHash() {
+        final ClusterLock lock = mock(ClusterLock.class);
+        sut = new ShardedRedisStore<>(redisTemplate, STORE_KEY, 16, LEGACY_KEY, 100, lock);
+        when(redisTemplate.hasKey(LEGACY_KEY)).thenReturn(true);
+        when(lock.tryLock(anyString(), anyLong())).thenReturn(false);
+
+        assertEquals(0, sut.migrate());
+        sut.get("a");
+
+        verify(hashOps, never()).scan(anyString(), any(ScanOptions.class));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(RedisSerializer.class),
+            any(RedisSerializer.class), anyListOf(String.class), anyVararg());
+        verify(hashOps).get(LEGACY_KEY, "a");
+    }
+
+    @Test
+    public void migrate_legacyHashWrittenAgain_resumeReadingLegacyHash() {
+        when(redisTemplate.hasKey(LEGACY_KEY)).thenReturn(false);
+        sut.migrate();
+        sut.get("a");
+        verify(hashOps, never()).get(LEGACY_KEY, "a");
+
+        when(redisTemplate.hasKey(LEGACY_KEY)).thenReturn(true);
+        when(hashOps.scan(eq(LEGACY_KEY), any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+        sut.migrate();
+        sut.get("a");
+
+        verify(hashOps).get(LEGACY_KEY, "a");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void scan_openCursorOfNextHashOnlyWhenPreviousExhausted() throws Exception {
+        final Map.Entry<String, String> entry = ImmutableMap.of("a", "1").entrySet().iterator().next();
+        final Cursor<Map.Entry<String, String>> emptyCursor = mock(Cursor.class);
+        when(hashOps.scan(anyString(), any(ScanOptions.class))).thenReturn(emptyCursor);
+        when(hashOps.scan(eq(LEGACY_KEY), any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true);
+        when(cursor.next()).thenReturn(entry);
+
+        try (Stream<Map.Entry<String, String>> scanned = sut.scan(100)) {
+            assertEquals(entry, scanned.findFirst().get());
+            verify(hashOps, times(1)).scan(anyString(), any(ScanOptions.class));
+        }
+
+        verify(cursor).close();
+    }
+
+    @Test
+    public void remove_deleteFromLegacyHashBeforeBucket() {
+        when(redisTemplate.hasKey(LEGACY_KEY)).thenReturn(false);
+        sut.migrate();
+
+        sut.removeAll(Collections.singletonList("a"));
+
+        InOrder order = inOrder(hashOps);
+        order.verify(hashOps).delete(LEGACY_KEY, "a");
+        order.verify(hashOps).delete(anyString(), eq("a"));
+    }
+
+    private String bucketOf(String key) {
+        final ArgumentCaptor<String> bucket = ArgumentCaptor.forClass(String.class);
+        sut.put(key, "");
+        verify(hashOps).put(bucket.capture(), eq(key), eq(""));
+        return bucket.getValue();
+    }
+
+    private void scanLegacy(Map<String, String> entries) {
+        final Iterator<Map.Entry<String, String>> iterator = entries.entrySet().iterator();
+        when(hashOps.scan(eq(LEGACY_KEY), any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    }
+
+    /**
+     * Bucket scripts store every field passed, legacy hash script reports given fields as removed meanwhile.
+     */
+    @SuppressWarnings("unchecked")
+    private void answerScripts(List<String> goneFromLegacy) {
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+            anyListOf(String.class), anyVararg())).thenAnswer(invocation -> {
+                final Object[] args = invocation.getArguments();
+                if (LEGACY_KEY.equals(((List<String>) args[3]).get(0))) {
+                    return goneFromLegacy;
+                }
+                final List<String> stored = new ArrayList<>();
+                for (int i = 4; i < args.length; i += 2) {
+                    stored.add(new String((byte[]) args[i], StandardCharsets.UTF_8));
+                }
+                return stored;
+            });
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.cloud.cc.api.CcAppSummary;
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.servicecatalog.cf.SingleFlight;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SingleFlightTest {
+
+    private static final String TOKEN = "token";
+
+    private SingleFlight sut;
+
+    private ExecutorService executor;
+
+    @Mock
+    private CcOperations ccClient;
+
+    @Mock
+    private CounterService counterService;
+
+    @Before
+    public void setUp() {
+        sut = new SingleFlight(counterService);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void getAppSummary_concurrentIdenticalCalls_callCloudControllerOnce() throws Exception {
+        final UUID app = UUID.randomUUID();
+        final CcAppSummary summary = new CcAppSummary();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(ccClient.getAppSummary(app)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return summary;
+        });
+
+        final Future<CcAppSummary> first = executor.submit(() -> sut.wrap(ccClient, TOKEN).getAppSummary(app));
+        started.await(5, TimeUnit.SECONDS);
+        final Future<CcAppSummary> second = executor.submit(() -> sut.wrap(ccClient, TOKEN).getAppSummary(app));
+        verify(counterService, timeout(5000)).increment(SingleFlight.COALESCED_METRIC);
+        release.countDown();
+
+        assertSame(summary, first.get(5, TimeUnit.SECONDS));
+        assertSame(summary, second.get(5, TimeUnit.SECONDS));
+        verify(ccClient, times(1)).getAppSummary(app);
+        verify(counterService, times(1)).increment(SingleFlight.EXECUTED_METRIC);
+    }
+
+    @Test
+    public void getAppSummary_sequentialCalls_callCloudControllerEachTime() {
+        final UUID app = UUID.randomUUID();
+        when(ccClient.getAppSummary(app)).thenReturn(new CcAppSummary());
+
+        sut.wrap(ccClient, TOKEN).getAppSummary(app);
+        sut.wrap(ccClient, TOKEN).getAppSummary(app);
+
+        verify(ccClient, times(2)).getAppSummary(app);
+    }
+
+    @Test
+    public void otherCalls_passedToClient() {
+        final UUID space = UUID.randomUUID();
+
+        sut.wrap(ccClient, TOKEN).getSpaceSummary(space);
+
+        verify(ccClient).getSpaceSummary(space);
+        verify(counterService, never()).increment(anyString());
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.cloud.cc.api.CcApp;
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcServiceInstance;
+import org.trustedanalytics.cloud.cc.api.CcSpace;
+import org.trustedanalytics.cloud.cc.api.CcSummary;
+import org.trustedanalytics.servicecatalog.cf.SpaceSummaryCache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.security.access.AccessDeniedException;
+import rx.Observable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SpaceSummaryCacheTest {
+
+    private static final String TOKEN = "token";
+
+    private SpaceSummaryCache sut;
+
+    private final List<Runnable> refreshes = new ArrayList<>();
+
+    private final UUID space = UUID.randomUUID();
+
+    @Mock
+    private CcOperations privilegedClient;
+
+    @Mock
+    private CcOperations userClient;
+
+    @Before
+    public void setUp() {
+        final CcSpace member = mock(CcSpace.class);
+        when(member.getGuid()).thenReturn(space);
+        when(userClient.getSpaces()).thenReturn(Observable.just(member));
+        sut = new SpaceSummaryCache(privilegedClient, 60000, 60000, 60000, refreshes::add);
+    }
+
+    @Test
+    public void getSpaceSummary_sameSpaceTwice_fetchSummaryAndSpacesOnce() {
+        final CcSummary summary = new CcSummary();
+        when(privilegedClient.getSpaceSummary(space)).thenReturn(summary);
+
+        assertSame(summary, sut.getSpaceSummary(userClient, TOKEN, space));
+        assertSame(summary, sut.getSpaceSummary(userClient, TOKEN, space));
+
+        verify(privilegedClient, times(1)).getSpaceSummary(space);
+        verify(userClient, times(1)).getSpaces();
+    }
+
+    @Test(expected = AccessDeniedException.class)
+    public void getSpaceSummary_notMemberOfSpace_throwAccessDenied() {
+        try {
+            sut.getSpaceSummary(userClient, TOKEN, UUID.randomUUID());
+        } finally {
+            verify(privilegedClient, never()).getSpaceSummary(any(UUID.class));
+        }
+    }
+
+    @Test
+    public void getSpaceSummary_summaryNotFresh_serveStaleAndRefreshInBackground() throws Exception {
+        sut = new SpaceSummaryCache(privilegedClient, 1, 60000, 60000, refreshes::add);
+        final CcSummary stale = new CcSummary();
+        final CcSummary fresh = new CcSummary();
+        when(privilegedClient.getSpaceSummary(space)).thenReturn(stale, fresh);
+
+        sut.getSpaceSummary(userClient, TOKEN, space);
+        Thread.sleep(10);
+
+        assertSame(stale, sut.getSpaceSummary(userClient, TOKEN, space));
+        refreshes.forEach(Runnable::run);
+        assertSame(fresh, sut.getSpaceSummary(userClient, TOKEN, space));
+    }
+
+    @Test
+    public void evictInstance_instanceOfCachedSpace_fetchSummaryAgain() {
+        final UUID instance = UUID.randomUUID();
+        final CcServiceInstance serviceInstance = new CcServiceInstance();
+        serviceInstance.setGuid(instance);
+        final CcSummary summary = new CcSummary();
+        summary.setServiceInstances(Collections.singletonList(serviceInstance));
+        when(privilegedClient.getSpaceSummary(space)).thenReturn(summary);
+
+        sut.getSpaceSummary(userClient, TOKEN, space);
+        sut.evictInstance(instance);
+        sut.getSpaceSummary(userClient, TOKEN, space);
+
+        verify(privilegedClient, times(2)).getSpaceSummary(space);
+    }
+
+    @Test
+    public void evictApp_appEvictedBefore_spaceOfAppForgotten() {
+        final UUID other = UUID.randomUUID();
+        final CcSpace member = mock(CcSpace.class);
+        final CcSpace otherMember = mock(CcSpace.class);
+        when(member.getGuid()).thenReturn(space);
+        when(otherMember.getGuid()).thenReturn(other);
+        when(userClient.getSpaces()).thenReturn(Observable.just(member, otherMember));
+        final UUID app = UUID.randomUUID();
+        final CcApp ccApp = new CcApp();
+        ccApp.setGuid(app);
+        final CcSummary summary = new CcSummary();
+        summary.setApps(Collections.singletonList(ccApp));
+        when(privilegedClient.getSpaceSummary(space)).thenReturn(summary);
+        when(privilegedClient.getSpaceSummary(other)).thenReturn(new CcSummary());
+        sut.getSpaceSummary(userClient, TOKEN, space);
+        sut.getSpaceSummary(userClient, TOKEN, other);
+
+        sut.evictApp(app);
+        sut.getSpaceSummary(userClient, TOKEN, other);
+        sut.evictApp(app);
+        sut.getSpaceSummary(userClient, TOKEN, other);
+
+        verify(privilegedClient, times(2)).getSpaceSummary(other);
+    }
+
+    @Test
+    public void wrap_getSpaceSummary_readThroughCache() {
+        final CcSummary summary = new CcSummary();
+        when(privilegedClient.getSpaceSummary(space)).thenReturn(summary);
+
+        assertSame(summary, sut.wrap(userClient, TOKEN).getSpaceSummary(space));
+
+        verify(userClient, never()).getSpaceSummary(any(UUID.class));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.cloud.cc.api.CcOperations;
+import org.trustedanalytics.cloud.cc.api.CcSummary;
+import org.trustedanalytics.servicecatalog.cf.SpaceSummaryMemo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SpaceSummaryMemoTest {
+
+    private CcOperations sut;
+
+    @Mock
+    private CcOperations ccClient;
+
+    @Mock
+    private CounterService counterService;
+
+    @Before
+    public void setUp() {
+        sut = SpaceSummaryMemo.wrap(ccClient, counterService);
+    }
+
+    @Test
+    public void getSpaceSummary_sameSpaceTwice_fetchSummaryOnce() {
+        final UUID space = UUID.randomUUID();
+        final CcSummary summary = new CcSummary();
+        when(ccClient.getSpaceSummary(space)).thenReturn(summary);
+
+        assertSame(summary, sut.getSpaceSummary(space));
+        assertSame(summary, sut.getSpaceSummary(space));
+
+        verify(ccClient, times(1)).getSpaceSummary(space);
+        verify(counterService).increment(SpaceSummaryMemo.SAVED_CALLS_METRIC);
+    }
+
+    @Test
+    public void getSpaceSummary_differentSpaces_fetchEachSummary() {
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        when(ccClient.getSpaceSummary(first)).thenReturn(new CcSummary());
+        when(ccClient.getSpaceSummary(second)).thenReturn(new CcSummary());
+
+        sut.getSpaceSummary(first);
+        sut.getSpaceSummary(second);
+
+        verify(ccClient).getSpaceSummary(first);
+        verify(ccClient).getSpaceSummary(second);
+    }
+
+    @Test
+    public void otherCalls_passedToClient() {
+        final UUID app = UUID.randomUUID();
+
+        sut.restageApp(app);
+
+        verify(ccClient).restageApp(app);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.trustedanalytics.servicecatalog.security.VerifierKeyProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VerifierKeyProviderTest {
+
+    private static final long REFRESH_INTERVAL = 600000;
+    private static final long MIN_REFRESH_INTERVAL = 60000;
+    private static final long MAX_BACKOFF = 300000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private Supplier<String> keySource;
+
+    private Path keyFile;
+
+    @Before
+    public void setUp() {
+        keyFile = folder.getRoot().toPath().resolve("token-key");
+    }
+
+    @Test
+    public void constructor_keyPersisted_startWithPersistedKeyWithoutFetching() throws Exception {
+        Files.write(keyFile, "persisted".getBytes(StandardCharsets.UTF_8));
+
+        final VerifierKeyProvider sut = createProvider();
+
+        assertEquals(Optional.of("persisted"), sut.getKey());
+        verify(keySource, times(0)).get();
+    }
+
+    @Test
+    public void refreshIfDue_keyFetched_persistKey() throws Exception {
+        when(keySource.get()).thenReturn("fetched");
+        final VerifierKeyProvider sut = createProvider();
+
+        sut.refreshIfDue();
+
+        assertEquals(Optional.of("fetched"), sut.getKey());
+        assertEquals("fetched", new String(Files.readAllBytes(keyFile), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void refreshIfDue_fetchedRecently_skipFetching() {
+        when(keySource.get()).thenReturn("fetched");
+        final VerifierKeyProvider sut = createProvider();
+
+        sut.refreshIfDue();
+        sut.refreshIfDue();
+
+        verify(keySource, times(1)).get();
+    }
+
+    @Test
+    public void refreshIfDue_fetchFailed_keepKeyAndBackOff() throws Exception {
+        Files.write(keyFile, "persisted".getBytes(StandardCharsets.UTF_8));
+        when(keySource.get()).thenThrow(new IllegalStateException("UAA unavailable"));
+        final VerifierKeyProvider sut = createProvider();
+
+        sut.refreshIfDue();
+        sut.refreshIfDue();
+
+        assertEquals(Optional.of("persisted"), sut.getKey());
+        verify(keySource, times(1)).get();
+    }
+
+    @Test
+    public void refreshNow_keyRotated_returnTrueOnlyOnceWithinMinimalInterval() {
+        when(keySource.get()).thenReturn("rotated");
+        final VerifierKeyProvider sut = createProvider();
+
+        assertTrue(sut.refreshNow());
+        assertFalse(sut.refreshNow());
+        verify(keySource, times(1)).get();
+    }
+
+    private VerifierKeyProvider createProvider() {
+        return new VerifierKeyProvider(keySource, keyFile, REFRESH_INTERVAL, MIN_REFRESH_INTERVAL, MAX_BACKOFF);
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.trustedanalytics.servicecatalog.storage.KeyValueStore;
+import org.trustedanalytics.servicecatalog.storage.WriteBehindStore;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.util.Collections;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WriteBehindStoreTest {
+
+    private static final long NEVER = 3_600_000;
+
+    private WriteBehindStore<String> sut;
+
+    @Mock
+    private KeyValueStore<String> delegate;
+
+    @Mock
+    private CounterService counterService;
+
+    @Before
+    public void setUp() {
+        sut = new WriteBehindStore<>(delegate, counterService, NEVER, 100, 2, 1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        sut.close();
+    }
+
+    @Test
+    public void put_notFlushed_serveFromQueue() {
+        sut.put("a", "1");
+
+        assertEquals("1", sut.get("a"));
+        verify(delegate, never()).putAll(anyMapOf(String.class, String.class));
+        verify(delegate, never()).get(anyString());
+    }
+
+    @Test
+    public void remove_notFlushed_hideValue() {
+        sut.put("a", "1");
+        sut.remove("a");
+
+        assertNull(sut.get("a"));
+        assertFalse(sut.hasKey("a"));
+    }
+
+    @Test
+    public void flush_coalescedModifications_writeLatestInSingleBatch() {
+        sut.put("a", "1");
+        sut.put("a", "2");
+        sut.put("b", "3");
+        sut.remove("b");
+
+        sut.flush();
+
+        verify(delegate).putAll(ImmutableMap.of("a", "2"));
+        verify(delegate).removeAll(Collections.singletonList("b"));
+    }
+
+    @Test
+    public void put_queueFull_writeSynchronously() {
+        sut.put("a", "1");
+        sut.put("b", "2");
+        sut.put("c", "3");
+
+        verify(delegate).putAll(ImmutableMap.of("c", "3"));
+    }
+
+    @Test
+    public void flush_delegateFails_retryThenDrop() {
+        doThrow(new IllegalStateException()).when(delegate).putAll(anyMapOf(String.class, String.class));
+        sut.put("a", "1");
+
+        sut.flush();
+
+        verify(delegate, times(2)).putAll(ImmutableMap.of("a", "1"));
+        verify(counterService).increment(WriteBehindStore.DROPPED_METRIC);
+    }
+
+    @Test
+    public void close_flushQueue() {
+        sut.put("a", "1");
+
+        sut.close();
+
+        verify(delegate).putAll(ImmutableMap.of("a", "1"));
+    }
+}
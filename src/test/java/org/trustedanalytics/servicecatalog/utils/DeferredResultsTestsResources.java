@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) 2015 Intel Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.trustedanalytics.servicecatalog.utils;
+
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.TimeUnit;
+
+public class DeferredResultsTestsResources {
+
+    private static final long WAIT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * Waits for result, which may be set on other thread, rethrowing error result the way it would be
+     * seen by exception handlers.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T getResult(DeferredResult<T> result) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!result.hasResult()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Result not set within " + WAIT_MILLIS + " ms");
+            }
+            Thread.sleep(10);
+        }
+        final Object value = result.getResult();
+        if (value instanceof RuntimeException) {
+            throw (RuntimeException) value;
+        }
+        return (T) value;
+    }
+}